@@ -1,5 +1,6 @@
 package com.classmonitor;
 
+import com.classmonitor.repository.ConnectionManager;
 import com.classmonitor.repository.Db;
 import com.classmonitor.ui.AppNavigator;
 import com.classmonitor.util.AppLogger;
@@ -20,6 +21,9 @@ public class MainApp extends Application {
 
     @Override
     public void stop() {
+        AppLogger.log("DB_STATS " + ConnectionManager.get().stats());
+        AppLogger.log("STUDENT_CACHE " + AppNavigator.studentRepository().stats());
+        ConnectionManager.get().close();
         AppLogger.log("APP_CLOSE");
     }
 
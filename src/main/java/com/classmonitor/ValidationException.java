@@ -1,7 +1,29 @@
 package com.classmonitor;
 
+import java.io.Serial;
+import java.util.List;
+
 public class ValidationException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // List.of/List.copyOf lists are serializable, but the field type does not say so
+    @SuppressWarnings("serial")
+    private final List<String> violations;
+
     public ValidationException(String message) {
         super(message);
+        this.violations = List.of(message);
+    }
+
+    /** Every rule the input broke; the message lists them all. */
+    public ValidationException(List<String> violations) {
+        super(String.join(" ", violations));
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<String> violations() {
+        return violations;
     }
 }
@@ -15,6 +15,9 @@ public record Student(
         String enrolledDate,
         String status
 ) {
+    /** {@link #isActive()} as a SQL condition on the status column; keep the two in step. */
+    public static final String ACTIVE_SQL = "lower(status) = 'active'";
+
     /**
      * Convenience no-arg constructor for places that expect it.
      * Records must delegate to the canonical constructor.
@@ -23,6 +26,47 @@ public record Student(
         this("", "", "", 0, 0.0, "", "", "", "Active");
     }
 
+    /** Only "Active" (any case) counts; blank, unknown or other statuses are not active. */
+    public boolean isActive() {
+        return "active".equalsIgnoreCase(status);
+    }
+
+    /**
+     * 64-bit FNV-1a over every column except the date added (which updates keep), stored as
+     * students.row_hash so an import can tell unchanged rows apart without comparing columns.
+     */
+    public long contentHash() {
+        long h = 0xcbf29ce484222325L;
+        h = hash(h, studentId);
+        h = hash(h, fullName);
+        h = hash(h, programme);
+        h = hash(h, level);
+        h = hash(h, Double.doubleToLongBits(gpa + 0.0)); // -0.0 == 0.0
+        h = hash(h, email);
+        h = hash(h, phone);
+        h = hash(h, status);
+        return h;
+    }
+
+    private static long hash(long h, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                h = (h ^ (c & 0xFF)) * 0x100000001b3L;
+                h = (h ^ (c >>> 8)) * 0x100000001b3L;
+            }
+        }
+        return (h ^ 0x1F) * 0x100000001b3L; // field separator
+    }
+
+    private static long hash(long h, long v) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (v & 0xFF)) * 0x100000001b3L;
+            v >>>= 8;
+        }
+        return (h ^ 0x1F) * 0x100000001b3L;
+    }
+
     // Compatibility alias (some parts of the project expect this name)
     public String dateAddedIso() {
         return enrolledDate;
@@ -0,0 +1,384 @@
+package com.classmonitor.repository;
+
+import com.classmonitor.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write-through LRU cache in front of another StudentRepository.
+ *
+ * Caches students by ID (including "not found", so existsById on a new ID is cached too)
+ * plus one snapshot of findAll()/count(). Writes go to the delegate first and then update
+ * the cache; any write drops the snapshot. search and findPage are not cached.
+ *
+ * Only writes made through this object are seen - share one instance per database.
+ * Listeners are told about each write after it has reached the delegate, or, inside
+ * {@link #deferNotifications}, after the caller's transaction has committed.
+ */
+public final class CachingStudentRepository implements StudentRepository {
+
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    /** Notified after a write went through. Called on the writing thread, outside the cache lock. */
+    public interface Listener {
+        void upserted(Student s);
+        void deleted(String studentId);
+        /** Anything may have changed (failed batch, invalidateAll): reload before the next use. */
+        void reset();
+    }
+
+    private final StudentRepository delegate;
+    private final Map<String, Optional<Student>> byId;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // null until loaded, cleared by every write
+    private List<Student> allSnapshot;
+
+    // bumped by every write; a read only caches what it loaded if this did not move
+    private long writeGeneration;
+
+    // writes inside deferNotifications on this thread, reported once it returns
+    private final ThreadLocal<Deferred> deferred = new ThreadLocal<>();
+
+    private static final class Deferred {
+        final Set<String> touched = new LinkedHashSet<>();
+        final List<Runnable> notifications = new ArrayList<>();
+    }
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingStudentRepository(StudentRepository delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public CachingStudentRepository(StudentRepository delegate, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.delegate = delegate;
+
+        // access-order map = LRU
+        this.byId = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<Student>> eldest) {
+                if (size() <= capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /* =========================
+       READS
+       ========================= */
+
+    @Override
+    public boolean existsById(String studentId) {
+        return findById(studentId).isPresent();
+    }
+
+    @Override
+    public Optional<Student> findById(String studentId) {
+        long gen;
+        synchronized (this) {
+            Optional<Student> cached = byId.get(studentId);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            gen = writeGeneration;
+        }
+
+        Optional<Student> loaded = delegate.findById(studentId);
+        synchronized (this) {
+            if (gen == writeGeneration) byId.put(studentId, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<Student> findAll() {
+        long gen;
+        synchronized (this) {
+            if (allSnapshot != null) {
+                hits++;
+                return allSnapshot;
+            }
+            misses++;
+            gen = writeGeneration;
+        }
+
+        List<Student> loaded = List.copyOf(delegate.findAll());
+        synchronized (this) {
+            if (gen == writeGeneration) allSnapshot = loaded;
+        }
+        return loaded;
+    }
+
+    @Override
+    public long count() {
+        synchronized (this) {
+            if (allSnapshot != null) return allSnapshot.size();
+        }
+        return delegate.count();
+    }
+
+    // exports stream straight from the database; caching them would defeat the point
+    @Override
+    public long forEach(Consumer<? super Student> action) {
+        return delegate.forEach(action);
+    }
+
+    @Override
+    public long forEachInGpaRange(double fromGpa, double belowGpa, Consumer<? super Student> action) {
+        return delegate.forEachInGpaRange(fromGpa, belowGpa, action);
+    }
+
+    @Override
+    public List<Student> topByGpa(String programme, Integer level, int k, boolean withTies) {
+        return delegate.topByGpa(programme, level, k, withTies);
+    }
+
+    @Override
+    public List<Student> findByIds(Collection<String> studentIds) {
+        return delegate.findByIds(studentIds);
+    }
+
+    @Override
+    public List<Student> search(String query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public StudentPage findPage(PageCursor after, int limit, StudentSort sort) {
+        return delegate.findPage(after, limit, sort);
+    }
+
+    /* =========================
+       WRITES (write-through)
+       ========================= */
+
+    @Override
+    public void add(Student s) {
+        delegate.add(s);
+        Deferred d = deferred.get();
+        synchronized (this) {
+            // not cached while it could still roll back
+            if (d == null) byId.put(s.studentId(), Optional.of(s));
+            else forget(d, s.studentId());
+            allSnapshot = null;
+            writeGeneration++;
+        }
+        notifyListeners(() -> { for (Listener l : listeners) l.upserted(s); });
+    }
+
+    @Override
+    public void update(Student s) {
+        delegate.update(s);
+        synchronized (this) {
+            // update() keeps the stored date_added, so reload on next read
+            forget(deferred.get(), s.studentId());
+            allSnapshot = null;
+            writeGeneration++;
+        }
+        notifyListeners(() -> { for (Listener l : listeners) l.upserted(s); });
+    }
+
+    @Override
+    public void delete(String studentId) {
+        delegate.delete(studentId);
+        Deferred d = deferred.get();
+        synchronized (this) {
+            if (d == null) byId.put(studentId, Optional.empty());
+            else forget(d, studentId);
+            allSnapshot = null;
+            writeGeneration++;
+        }
+        notifyListeners(() -> { for (Listener l : listeners) l.deleted(studentId); });
+    }
+
+    @Override
+    public int upsertAll(Iterable<Student> students, int commitSize) {
+        List<Student> rows = new ArrayList<>(); // read the caller's Iterable once
+        for (Student s : students) rows.add(s);
+        boolean ok = false;
+        try {
+            int written = delegate.upsertAll(rows, commitSize);
+            ok = true;
+            return written;
+        } finally {
+            afterUpsert(rows, ok ? rows : null);
+        }
+    }
+
+    @Override
+    public UpsertCounts upsertChanged(List<Student> students, Consumer<? super Student> written) {
+        List<Student> changed = new ArrayList<>();
+        boolean ok = false;
+        try {
+            UpsertCounts counts = delegate.upsertChanged(students, s -> {
+                changed.add(s);
+                written.accept(s);
+            });
+            ok = true;
+            return counts;
+        } finally {
+            // unchanged rows were not touched, so only a failure forgets them too
+            afterUpsert(ok ? changed : students, ok ? changed : null);
+        }
+    }
+
+    /**
+     * Upserts keep date_added on conflict and may have partly committed: forget {@code touched}.
+     * Listeners get the stored version of each {@code written} row, or a reset when that is null
+     * (the write failed) or the rows cannot be read back.
+     */
+    private void afterUpsert(List<Student> touched, List<Student> written) {
+        if (touched.isEmpty()) return;
+        Deferred d = deferred.get();
+        synchronized (this) {
+            for (Student s : touched) forget(d, s.studentId());
+            allSnapshot = null;
+            writeGeneration++;
+        }
+        if (listeners.isEmpty() || (written != null && written.isEmpty())) return;
+
+        // read back when the listeners are told: inside a caller's transaction the rows are
+        // only visible to other connections once it has committed
+        notifyListeners(() -> {
+            List<Student> stored = null;
+            if (written != null) {
+                try {
+                    stored = storedInOrder(written);
+                } catch (RuntimeException e) {
+                    // fall through to a reset: listeners reload instead of missing rows
+                }
+            }
+            for (Listener l : listeners) {
+                if (stored == null) l.reset();
+                else for (Student s : stored) l.upserted(s);
+            }
+        });
+    }
+
+    // the rows as stored now, once per ID, in the order they were written
+    private List<Student> storedInOrder(List<Student> written) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Student s : written) ids.add(s.studentId());
+        Map<String, Student> byStoredId = new HashMap<>();
+        for (Student s : delegate.findByIds(ids)) byStoredId.put(s.studentId(), s);
+        List<Student> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Student s = byStoredId.get(id);
+            if (s != null) out.add(s);
+        }
+        return out;
+    }
+
+    /**
+     * Runs {@code transaction} and tells listeners about the writes made in it on this thread
+     * only once it has returned (committed). If it throws, its rows may have rolled back, so
+     * they are forgotten again and listeners get {@link Listener#reset()} instead. Rows are
+     * also dropped from the cache at the end, since reads on other connections saw the old
+     * ones until then. Nested calls run inside the outermost one.
+     */
+    @Override
+    public <T> T deferNotifications(Supplier<T> transaction) {
+        if (deferred.get() != null) return transaction.get();
+        Deferred d = new Deferred();
+        deferred.set(d);
+        boolean ok = false;
+        try {
+            T result = delegate.deferNotifications(transaction);
+            ok = true;
+            return result;
+        } finally {
+            deferred.remove();
+            if (!d.touched.isEmpty()) {
+                synchronized (this) {
+                    byId.keySet().removeAll(d.touched);
+                    allSnapshot = null;
+                    writeGeneration++;
+                }
+            }
+            if (ok) {
+                for (Runnable n : d.notifications) n.run();
+            } else if (!d.touched.isEmpty()) {
+                for (Listener l : listeners) l.reset();
+            }
+        }
+    }
+
+    private void forget(Deferred d, String studentId) {
+        byId.remove(studentId);
+        if (d != null) d.touched.add(studentId);
+    }
+
+    private void notifyListeners(Runnable notification) {
+        Deferred d = deferred.get();
+        if (d == null) notification.run();
+        else d.notifications.add(notification);
+    }
+
+    /** Drops everything, e.g. after the database was changed behind this cache. */
+    public void invalidateAll() {
+        synchronized (this) {
+            byId.clear();
+            allSnapshot = null;
+            writeGeneration++;
+        }
+        for (Listener l : listeners) l.reset();
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /* =========================
+       STATS
+       ========================= */
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /** Fraction of reads served from the cache, 0.0 before the first read. */
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public synchronized String stats() {
+        return "size=" + byId.size() + " hits=" + hits + " misses=" + misses
+                + " evictions=" + evictions + String.format(Locale.US, " hitRate=%.3f", hitRate());
+    }
+}
@@ -0,0 +1,382 @@
+package com.classmonitor.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Owns the SQLite connections for the process.
+ *
+ * There is one writer connection, borrowed exclusively through {@link #write()}. In pooled
+ * mode (see {@link StorageConfig}) the database runs in WAL mode and {@link #read()} hands
+ * out read-only connections from a small pool, so reports and searches do not wait for an
+ * import. Otherwise reads share the writer.
+ *
+ * Closing a lease only releases it; connections stay open until {@link #close()} is called
+ * on app shutdown. Schema setup runs once, the first time the database is opened.
+ */
+public final class ConnectionManager implements AutoCloseable {
+
+    public static final String DEFAULT_URL = "jdbc:sqlite:classmonitor.db";
+
+    private static ConnectionManager instance;
+
+    private final String url;
+    private final StorageConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // ---- writer ----
+    private Connection conn;
+    private StatementCache statements;
+    private volatile boolean schemaReady;
+
+    // ---- readers (pooled mode only) ----
+    private final BlockingQueue<Reader> idleReaders = new LinkedBlockingQueue<>();
+    private final List<Reader> readers = new ArrayList<>();
+
+    private ScheduledExecutorService checkpointer;
+
+    // ---- stats ----
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong readLeases = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+
+    // statement cache totals from retired caches (kept across reconnects)
+    private final AtomicLong stmtHits = new AtomicLong();
+    private final AtomicLong stmtMisses = new AtomicLong();
+
+    private ConnectionManager(String url, StorageConfig config) {
+        this.url = url;
+        // WAL needs a real file; an in-memory DB would give every reader its own empty database
+        this.config = url.contains(":memory:") ? StorageConfig.singleConnection() : config;
+    }
+
+    /** Shared manager for the default database file. */
+    public static synchronized ConnectionManager get() {
+        if (instance == null) instance = new ConnectionManager(DEFAULT_URL, StorageConfig.defaults());
+        return instance;
+    }
+
+    /**
+     * Points the shared manager at another database (tests, alternate files).
+     * Any previously opened connections are closed.
+     */
+    public static synchronized ConnectionManager configure(String url) {
+        return configure(url, StorageConfig.defaults());
+    }
+
+    public static synchronized ConnectionManager configure(String url, StorageConfig config) {
+        if (instance != null) instance.close();
+        instance = new ConnectionManager(url, config);
+        return instance;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public StorageConfig config() {
+        return config;
+    }
+
+    /**
+     * Borrows the writer connection. The calling thread holds it exclusively until the lease
+     * is closed; nested leases on the same thread are allowed.
+     */
+    public Lease write() throws SQLException {
+        lock.lock();
+        try {
+            Connection c = physical();
+            leases.incrementAndGet();
+            return new Lease(c, statements, lock::unlock);
+        } catch (SQLException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrows a read-only connection. Falls back to the writer in single-connection mode, and
+     * when the calling thread already holds the writer (so it sees its own uncommitted rows).
+     */
+    public Lease read() throws SQLException {
+        if (!config.pooled() || lock.isHeldByCurrentThread()) return write();
+
+        // writer first: schema + WAL mode must be in place before readers open
+        if (!schemaReady) connection();
+
+        Reader r = idleReaders.poll();
+        while (r != null && r.conn.isClosed()) r = idleReaders.poll(); // handed back after close()
+        if (r == null) r = openOrWaitForReader();
+
+        readLeases.incrementAndGet();
+        Reader reader = r;
+        return new Lease(reader.conn, reader.statements, () -> idleReaders.offer(reader));
+    }
+
+    // opens the writer (and runs the schema) if needed; callers get connections only through leases
+    private Connection connection() throws SQLException {
+        lock.lock();
+        try {
+            return physical();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection physical() throws SQLException {
+        if (conn != null && !conn.isClosed()) {
+            reuses.incrementAndGet();
+            return conn;
+        }
+
+        retire(statements);
+        conn = DriverManager.getConnection(url);
+        applyPragmas(conn, false);
+        statements = new StatementCache(conn);
+        opens.incrementAndGet();
+
+        if (!schemaReady) {
+            Schema.ensure(conn);
+            schemaReady = true;
+        }
+        startCheckpointer();
+        return conn;
+    }
+
+    // ======================
+    // READERS
+    // ======================
+
+    private Reader openOrWaitForReader() throws SQLException {
+        synchronized (readers) {
+            if (readers.size() < config.readers()) {
+                Connection c = DriverManager.getConnection(url);
+                applyPragmas(c, true);
+                Reader r = new Reader(c, new StatementCache(c));
+                readers.add(r);
+                opens.incrementAndGet();
+                return r;
+            }
+        }
+
+        try {
+            Reader r = idleReaders.poll(config.busyTimeoutMs(), TimeUnit.MILLISECONDS);
+            if (r == null) throw new SQLException("Timed out waiting for a read connection");
+            return r;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    private void applyPragmas(Connection c, boolean readOnly) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA busy_timeout = " + config.busyTimeoutMs());
+            st.execute("PRAGMA cache_size = -" + config.cacheSizeKb());
+            st.execute("PRAGMA mmap_size = " + config.mmapSizeBytes());
+            if (config.pooled() && !readOnly) st.execute("PRAGMA journal_mode = WAL");
+            st.execute("PRAGMA synchronous = " + config.synchronous());
+            if (readOnly) st.execute("PRAGMA query_only = 1");
+        }
+    }
+
+    // ======================
+    // CHECKPOINTS
+    // ======================
+
+    private void startCheckpointer() {
+        if (checkpointer != null || !config.pooled() || config.checkpointIntervalMs() == 0) return;
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = config.checkpointIntervalMs();
+        checkpointer.scheduleWithFixedDelay(this::checkpointIfIdle, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * PASSIVE checkpoint when nobody is writing: copies committed WAL pages into the main file
+     * without waiting on readers, so the WAL stays short between SQLite's auto-checkpoints.
+     */
+    private void checkpointIfIdle() {
+        if (!lock.tryLock()) return; // writer busy, try next round
+        try {
+            if (conn == null || conn.isClosed()) return;
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA wal_checkpoint(PASSIVE)");
+                checkpoints.incrementAndGet();
+            }
+        } catch (SQLException ignored) {
+            // retried on the next round
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ======================
+    // STATS
+    // ======================
+
+    /** Number of physical connections opened so far (writer + readers). */
+    public long openCount() {
+        return opens.get();
+    }
+
+    /** Number of writer leases handed out. */
+    public long leaseCount() {
+        return leases.get();
+    }
+
+    /** Number of read-only leases handed out from the pool. */
+    public long readLeaseCount() {
+        return readLeases.get();
+    }
+
+    /** Number of times the already-open writer was reused. */
+    public long reuseCount() {
+        return reuses.get();
+    }
+
+    /** Background checkpoints completed. */
+    public long checkpointCount() {
+        return checkpoints.get();
+    }
+
+    /** Prepared statements served from the caches. */
+    public long statementHitCount() {
+        long n = stmtHits.get();
+        for (StatementCache c : liveCaches()) n += c.hitCount();
+        return n;
+    }
+
+    /** Prepared statements that had to be compiled. */
+    public long statementMissCount() {
+        long n = stmtMisses.get();
+        for (StatementCache c : liveCaches()) n += c.missCount();
+        return n;
+    }
+
+    private List<StatementCache> liveCaches() {
+        List<StatementCache> out = new ArrayList<>();
+        StatementCache w = statements;
+        if (w != null) out.add(w);
+        synchronized (readers) {
+            for (Reader r : readers) out.add(r.statements);
+        }
+        return out;
+    }
+
+    public String stats() {
+        return "opens=" + opens.get() + " leases=" + leases.get() + " readLeases=" + readLeases.get()
+                + " reuses=" + reuses.get() + " checkpoints=" + checkpoints.get()
+                + " stmtHits=" + statementHitCount() + " stmtMisses=" + statementMissCount();
+    }
+
+    private void retire(StatementCache cache) {
+        if (cache == null) return;
+        stmtHits.addAndGet(cache.hitCount());
+        stmtMisses.addAndGet(cache.missCount());
+        cache.close();
+    }
+
+    @Override
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+            checkpointer = null;
+        }
+
+        synchronized (readers) {
+            for (Reader r : readers) {
+                retire(r.statements);
+                closeQuietly(r.conn);
+            }
+            readers.clear();
+            idleReaders.clear();
+        }
+
+        lock.lock();
+        try {
+            retire(statements);
+            statements = null;
+            if (conn != null && config.pooled()) {
+                // fold the WAL back into the main file so the .db is self-contained
+                try (Statement st = conn.createStatement()) {
+                    st.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                } catch (SQLException ignored) {
+                    // shutting down anyway
+                }
+            }
+            closeQuietly(conn);
+        } finally {
+            conn = null;
+            lock.unlock();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    private record Reader(Connection conn, StatementCache statements) {}
+
+    /**
+     * A borrowed connection. Closing the lease hands the connection back; it never
+     * closes the underlying JDBC connection.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final Connection connection;
+        private final StatementCache statements;
+        private final Runnable release;
+        private boolean released;
+
+        private Lease(Connection connection, StatementCache statements, Runnable release) {
+            this.connection = connection;
+            this.statements = statements;
+            this.release = release;
+        }
+
+        public Connection connection() {
+            if (released) throw new IllegalStateException("Lease already released");
+            return connection;
+        }
+
+        /**
+         * Cached prepared statement for this connection. Do NOT close it;
+         * close only the ResultSet.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            if (released) throw new IllegalStateException("Lease already released");
+            return statements.prepare(sql);
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release.run();
+        }
+    }
+}
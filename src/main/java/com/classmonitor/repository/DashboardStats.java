@@ -0,0 +1,29 @@
+package com.classmonitor.repository;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Everything the dashboard shows, computed by the database.
+ *
+ * @param atRiskBelow      GPA threshold used for the at-risk bucket (gpa &lt; atRiskBelow)
+ * @param topFrom          GPA threshold used for the top bucket (gpa &gt;= topFrom)
+ * @param avgGpaByLevel    average GPA per level, ordered by level
+ */
+public record DashboardStats(
+        long total,
+        long active,
+        long inactive,
+        double averageGpa,
+        double atRiskBelow,
+        double topFrom,
+        long atRisk,
+        long middle,
+        long top,
+        Map<Integer, Double> avgGpaByLevel
+) {
+    public DashboardStats {
+        avgGpaByLevel = Collections.unmodifiableMap(new TreeMap<>(avgGpaByLevel));
+    }
+}
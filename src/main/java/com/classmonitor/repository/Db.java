@@ -1,47 +1,25 @@
 package com.classmonitor.repository;
 
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 
 public final class Db {
 
-    private static Connection conn;
-
     private Db() {}
 
-    public static Connection get() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-
-            // 🔹 Open SQLite connection (keep your DB name/path as-is)
-            conn = DriverManager.getConnection("jdbc:sqlite:classmonitor.db");
-
-            // 🔹 ENSURE required tables exist (settings + programmes)
-            Schema.ensure(conn);
-        }
-        return conn;
-    }
+    /*
+     * The shared connection is only handed out through {@code ConnectionManager.get().write()}
+     * or {@code read()} leases, so nothing writes past the writer lock (e.g. into an open import batch).
+     */
 
     public static void initSchema() {
+        // Opening the writer runs schema setup (once per process)
         try {
-            // Ensure connection exists
-            Connection c = get();
-
-            // Ensure tables exist
-            Schema.ensure(c);
+            ConnectionManager.get().write().close();
         } catch (SQLException e) {
             throw new RuntimeException("Failed to initialize DB schema: " + e.getMessage(), e);
         }
     }
 
-    public static Connection getConnection() {
-        try {
-            return get();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
 }
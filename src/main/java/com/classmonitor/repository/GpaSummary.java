@@ -0,0 +1,22 @@
+package com.classmonitor.repository;
+
+/** Student count and GPA moments of a group, as kept in the student_aggregates table. */
+public record GpaSummary(long count, double gpaSum, double gpaSumOfSquares) {
+
+    public static final GpaSummary EMPTY = new GpaSummary(0, 0, 0);
+
+    public double average() {
+        return count == 0 ? 0 : gpaSum / count;
+    }
+
+    /** Population standard deviation; 0 for fewer than two students. */
+    public double stdDev() {
+        if (count < 2) return 0;
+        double mean = average();
+        return Math.sqrt(Math.max(0, gpaSumOfSquares / count - mean * mean));
+    }
+
+    public GpaSummary plus(GpaSummary o) {
+        return new GpaSummary(count + o.count, gpaSum + o.gpaSum, gpaSumOfSquares + o.gpaSumOfSquares);
+    }
+}
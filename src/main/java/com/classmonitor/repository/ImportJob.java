@@ -0,0 +1,38 @@
+package com.classmonitor.repository;
+
+/**
+ * A CSV import and its last durable checkpoint.
+ *
+ * Everything up to and including {@code lastLine} is committed. {@code byteOffset} is a record
+ * boundary at or before the first uncommitted row and {@code offsetLine} the physical line that
+ * starts there, so a resume re-reads from the offset and skips lines up to {@code lastLine}.
+ * An offset of 0 means no boundary was known (streamed imports): resume reads from the top.
+ */
+public record ImportJob(
+        long id,
+        String filePath,
+        String fingerprint,
+        long fileSize,
+        long byteOffset,
+        long offsetLine,
+        long lastLine,
+        int successCount,
+        int failureCount,
+        UpsertCounts changes,
+        String status,
+        String updatedAt
+) {
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String CANCELLED = "cancelled";
+    public static final String FAILED = "failed";
+    public static final String SUPERSEDED = "superseded";
+
+    /** State written with each batch. */
+    public record Checkpoint(long byteOffset, long offsetLine, long lastLine, int successCount, int failureCount,
+                             UpsertCounts changes) {}
+
+    public Checkpoint checkpoint() {
+        return new Checkpoint(byteOffset, offsetLine, lastLine, successCount, failureCount, changes);
+    }
+}
@@ -0,0 +1,30 @@
+package com.classmonitor.repository;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Durable import checkpoints (the import_jobs table). The checkpoint is committed in the same
+ * transaction as the batch it describes, so it never claims rows that were rolled back.
+ */
+public interface ImportJobRepository {
+
+    /** Records a new running import; unfinished imports of the same file are marked superseded. */
+    ImportJob start(String filePath, String fingerprint, long fileSize);
+
+    /**
+     * Runs {@code batch} (a student upsert on the same database) and saves the checkpoint made
+     * from its result, in one transaction.
+     * @return what {@code batch} returned
+     */
+    <T> T commitBatch(long jobId, Supplier<T> batch, Function<? super T, ImportJob.Checkpoint> checkpoint);
+
+    /** Sets the final status (and counts) of an import. */
+    void finish(long jobId, String status, int successCount, int failureCount);
+
+    /** Most recent unfinished import of a file with this fingerprint that committed at least one batch. */
+    Optional<ImportJob> findResumable(String fingerprint);
+
+    Optional<ImportJob> findById(long jobId);
+}
@@ -0,0 +1,31 @@
+package com.classmonitor.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One schema change. Versions are applied once, in ascending order, by {@link MigrationRunner}.
+ */
+public record Migration(int version, String description, Step step) {
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    public Migration {
+        if (version < 1) throw new IllegalArgumentException("version must be >= 1");
+        if (description == null || description.isBlank()) throw new IllegalArgumentException("description is required");
+        if (step == null) throw new IllegalArgumentException("step is required");
+    }
+
+    /** Migration made of plain SQL statements, run in order. */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, conn -> {
+            try (Statement st = conn.createStatement()) {
+                for (String sql : statements) st.executeUpdate(sql);
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.classmonitor.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies pending {@link Migration}s and records them in {@code schema_version}.
+ * Each migration runs in its own transaction together with its version row.
+ */
+public final class MigrationRunner {
+
+    private final List<Migration> migrations;
+
+    public MigrationRunner(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).version() == sorted.get(i - 1).version())
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).version());
+        }
+        this.migrations = List.copyOf(sorted);
+    }
+
+    /** Highest version recorded in the database (0 for a fresh database). */
+    public static int currentVersion(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Runs every migration newer than the database.
+     * @return number of migrations applied
+     */
+    public int migrate(Connection conn) throws SQLException {
+        int current = currentVersion(conn);
+        int applied = 0;
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (Migration m : migrations) {
+                if (m.version() <= current) continue;
+                try {
+                    m.step().apply(conn);
+                    record(conn, m);
+                    conn.commit();
+                    applied++;
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw new SQLException("Migration " + m.version() + " (" + m.description() + ") failed: "
+                            + e.getMessage(), e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                  version INTEGER PRIMARY KEY,
+                  description TEXT NOT NULL,
+                  applied_at TEXT NOT NULL
+                )
+            """);
+        }
+    }
+
+    private static void record(Connection conn, Migration m) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+            ps.setInt(1, m.version());
+            ps.setString(2, m.description());
+            ps.setString(3, LocalDateTime.now().toString());
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.classmonitor.repository;
+
+import com.classmonitor.domain.Student;
+
+/**
+ * Position after the last row of a page: the sort key values of that row.
+ * Only the fields used by the page's {@link StudentSort} matter.
+ */
+public record PageCursor(String fullName, double gpa, String studentId) {
+
+    public static PageCursor after(Student last) {
+        return new PageCursor(last.fullName(), last.gpa(), last.studentId());
+    }
+}
@@ -1,6 +1,5 @@
 package com.classmonitor.repository;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -9,17 +8,21 @@ import java.util.List;
 
 public class ProgrammeDAO {
 
-    private final Connection conn;
+    private final ConnectionManager db;
 
-    public ProgrammeDAO(Connection conn) {
-        this.conn = conn;
+    public ProgrammeDAO() {
+        this(ConnectionManager.get());
+    }
+
+    public ProgrammeDAO(ConnectionManager db) {
+        this.db = db;
     }
 
     public List<String> getAllProgrammes() throws SQLException {
         List<String> out = new ArrayList<>();
         final String sql = "SELECT name FROM programmes ORDER BY name";
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (ConnectionManager.Lease lease = db.read();
+             ResultSet rs = lease.prepare(sql).executeQuery()) {
             while (rs.next()) {
                 out.add(rs.getString("name"));
             }
@@ -27,26 +30,31 @@ public class ProgrammeDAO {
         return out;
     }
 
-    public void addProgramme(String name) throws SQLException {
-        final String sql = "INSERT INTO programmes(name) VALUES(?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+    /** @return false if a programme with that name already exists */
+    public boolean addProgramme(String name) throws SQLException {
+        final String sql = "INSERT OR IGNORE INTO programmes(name) VALUES(?)";
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, name.trim());
-            ps.executeUpdate();
+            return ps.executeUpdate() > 0;
         }
     }
 
-    public void renameProgramme(String oldName, String newName) throws SQLException {
+    /** @return false if there is no programme called {@code oldName} */
+    public boolean renameProgramme(String oldName, String newName) throws SQLException {
         final String sql = "UPDATE programmes SET name = ? WHERE name = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, newName.trim());
             ps.setString(2, oldName);
-            ps.executeUpdate();
+            return ps.executeUpdate() > 0;
         }
     }
 
     public void deleteProgramme(String name) throws SQLException {
         final String sql = "DELETE FROM programmes WHERE name = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, name);
             ps.executeUpdate();
         }
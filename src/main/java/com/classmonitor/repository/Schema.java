@@ -1,51 +1,399 @@
 package com.classmonitor.repository;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 public final class Schema {
 
     private Schema() {}
 
+    /**
+     * Ordered schema history. Never edit a migration that has shipped - add a new one.
+     * Versions 1-2 use IF NOT EXISTS because databases created before versioning already
+     * have those tables.
+     */
+    public static final List<Migration> MIGRATIONS = List.of(
+
+            // ---- Core tables: students (REQUIRED), app_settings, programmes ----
+            Migration.sql(1, "base tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS students (
+                      student_id TEXT PRIMARY KEY,
+                      full_name TEXT NOT NULL,
+                      programme TEXT NOT NULL,
+                      level INTEGER NOT NULL,
+                      gpa REAL NOT NULL,
+                      email TEXT,
+                      phone TEXT,
+                      date_added TEXT,
+                      status TEXT NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS app_settings (
+                      key TEXT PRIMARY KEY,
+                      value TEXT NOT NULL
+                    )
+                    """,
+                    """
+                    INSERT OR IGNORE INTO app_settings(key, value)
+                    VALUES ('at_risk_gpa_threshold', '2.50')
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS programmes (
+                      id INTEGER PRIMARY KEY AUTOINCREMENT,
+                      name TEXT NOT NULL UNIQUE
+                    )
+                    """),
+
+            // ---- GPA thresholds (was probed by SettingsDAO on every construction) ----
+            new Migration(2, "settings thresholds", Schema::settingsTable),
+
+            // ---- Secondary indexes for the Students/Reports filters ----
+            // (programme, level) also serves programme-only filters, so there is no separate
+            // single-column programme index to maintain on every write.
+            Migration.sql(3, "student indexes",
+                    "CREATE INDEX IF NOT EXISTS idx_students_programme_level ON students(programme, level)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_gpa ON students(gpa)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_status ON students(status)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_name_lower ON students(lower(full_name))"),
+
+            // ---- Full-text search over id, name, email, programme ----
+            new Migration(4, "students full-text index", Schema::studentsFts),
+
+            // ---- Keyset pagination: (sort key, student_id) so each page is an index seek ----
+            // (gpa, student_id) replaces the plain gpa index for range filters too.
+            Migration.sql(5, "pagination indexes",
+                    "CREATE INDEX IF NOT EXISTS idx_students_name_id ON students(full_name, student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_gpa_id ON students(gpa, student_id)",
+                    "DROP INDEX IF EXISTS idx_students_gpa"),
+
+            // ---- Import checkpoints: one row per import, updated in each batch's transaction ----
+            Migration.sql(6, "import jobs",
+                    """
+                    CREATE TABLE import_jobs (
+                      id INTEGER PRIMARY KEY AUTOINCREMENT,
+                      file_path TEXT NOT NULL,
+                      fingerprint TEXT NOT NULL,
+                      file_size INTEGER NOT NULL,
+                      byte_offset INTEGER NOT NULL DEFAULT 0,
+                      offset_line INTEGER NOT NULL DEFAULT 1,
+                      last_line INTEGER NOT NULL DEFAULT 1,
+                      success_count INTEGER NOT NULL DEFAULT 0,
+                      failure_count INTEGER NOT NULL DEFAULT 0,
+                      status TEXT NOT NULL,
+                      started_at TEXT NOT NULL,
+                      updated_at TEXT NOT NULL
+                    )
+                    """,
+                    "CREATE INDEX idx_import_jobs_fingerprint ON import_jobs(fingerprint, status)"),
+
+            // ---- Change detection: Student.contentHash() of each row (NULL = unknown, rewritten once) ----
+            Migration.sql(7, "student row hashes",
+                    "ALTER TABLE students ADD COLUMN row_hash INTEGER",
+                    "ALTER TABLE import_jobs ADD COLUMN inserted_count INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE import_jobs ADD COLUMN updated_count INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE import_jobs ADD COLUMN unchanged_count INTEGER NOT NULL DEFAULT 0"),
+
+            // ---- Dashboard aggregates per (programme, level, status), kept current by triggers ----
+            new Migration(8, "student aggregates", Schema::studentAggregates),
+
+            // ---- Top-k by GPA within a programme (and level) straight off an index ----
+            // (programme, level, gpa, student_id) still serves the programme/level filters.
+            Migration.sql(9, "top-k indexes",
+                    "CREATE INDEX IF NOT EXISTS idx_students_programme_gpa ON students(programme, gpa, student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_programme_level_gpa ON students(programme, level, gpa, student_id)",
+                    "DROP INDEX IF EXISTS idx_students_programme_level")
+    );
+
+    /** FTS5 table behind StudentRepository.search; absent when SQLite was built without FTS5. */
+    public static final String STUDENTS_FTS = "students_fts";
+
+    /** Brings the database up to the latest schema version. Cheap when already current. */
     public static void ensure(Connection conn) throws SQLException {
-        try (Statement st = conn.createStatement()) {
+        new MigrationRunner(MIGRATIONS).migrate(conn);
+    }
 
-            // ---- Core table: students (REQUIRED) ----
+    private static void settingsTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
             st.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS students (
-                  student_id TEXT PRIMARY KEY,
-                  full_name TEXT NOT NULL,
-                  programme TEXT NOT NULL,
-                  level INTEGER NOT NULL,
-                  gpa REAL NOT NULL,
-                  email TEXT,
-                  phone TEXT,
-                  date_added TEXT,
-                  status TEXT NOT NULL
+                CREATE TABLE IF NOT EXISTS settings (
+                    id INTEGER PRIMARY KEY,
+                    at_risk_threshold REAL DEFAULT 2.0,
+                    average_threshold REAL DEFAULT 3.0,
+                    top_threshold REAL DEFAULT 3.5
                 )
             """);
 
-            // ---- Settings table ----
+            // Older databases may have the table without all columns
+            addColumnIfMissing(st, "average_threshold", "REAL DEFAULT 3.0");
+            addColumnIfMissing(st, "top_threshold", "REAL DEFAULT 3.5");
+            addColumnIfMissing(st, "at_risk_threshold", "REAL DEFAULT 2.0");
+
             st.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS app_settings (
-                  key TEXT PRIMARY KEY,
-                  value TEXT NOT NULL
-                )
+                INSERT OR IGNORE INTO settings (id, at_risk_threshold, average_threshold, top_threshold)
+                VALUES (1, 2.0, 3.0, 3.5)
             """);
+        }
+    }
+
+    /**
+     * External-content FTS5 index: it stores only the index and reads column values from
+     * students by rowid. Triggers keep it in sync (upserts fire the UPDATE trigger).
+     * students has no INTEGER PRIMARY KEY, so a VACUUM may renumber rowids - run
+     * INSERT INTO students_fts(students_fts) VALUES('rebuild') after one.
+     */
+    private static void studentsFts(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            try {
+                st.executeUpdate("""
+                    CREATE VIRTUAL TABLE IF NOT EXISTS students_fts USING fts5(
+                      student_id, full_name, email, programme,
+                      content='students', content_rowid='rowid',
+                      tokenize='unicode61 remove_diacritics 2'
+                    )
+                """);
+            } catch (SQLException e) {
+                // SQLite built without FTS5: search falls back to LIKE
+                if (String.valueOf(e.getMessage()).contains("fts5")) return;
+                throw e;
+            }
 
             st.executeUpdate("""
-                INSERT OR IGNORE INTO app_settings(key, value)
-                VALUES ('at_risk_gpa_threshold', '2.50')
+                CREATE TRIGGER IF NOT EXISTS students_fts_ai AFTER INSERT ON students BEGIN
+                  INSERT INTO students_fts(rowid, student_id, full_name, email, programme)
+                  VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+                END
+            """);
+            st.executeUpdate("""
+                CREATE TRIGGER IF NOT EXISTS students_fts_ad AFTER DELETE ON students BEGIN
+                  INSERT INTO students_fts(students_fts, rowid, student_id, full_name, email, programme)
+                  VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+                END
+            """);
+            st.executeUpdate("""
+                CREATE TRIGGER IF NOT EXISTS students_fts_au
+                AFTER UPDATE OF student_id, full_name, email, programme ON students BEGIN
+                  INSERT INTO students_fts(students_fts, rowid, student_id, full_name, email, programme)
+                  VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+                  INSERT INTO students_fts(rowid, student_id, full_name, email, programme)
+                  VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+                END
             """);
 
-            // ---- Programmes table (optional feature) ----
+            // index rows that existed before this migration
+            st.executeUpdate("INSERT INTO students_fts(students_fts) VALUES ('rebuild')");
+        }
+    }
+
+    /** The FTS triggers of migration 4 (which keeps its own copy), for {@link #resumeFtsTriggers}. */
+    private static final String[] FTS_TRIGGERS = {
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_ai AFTER INSERT ON students BEGIN
+              INSERT INTO students_fts(rowid, student_id, full_name, email, programme)
+              VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_ad AFTER DELETE ON students BEGIN
+              INSERT INTO students_fts(students_fts, rowid, student_id, full_name, email, programme)
+              VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_au
+            AFTER UPDATE OF student_id, full_name, email, programme ON students BEGIN
+              INSERT INTO students_fts(students_fts, rowid, student_id, full_name, email, programme)
+              VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+              INSERT INTO students_fts(rowid, student_id, full_name, email, programme)
+              VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+            END
+            """
+    };
+
+    /**
+     * Drops the FTS triggers before students is rewritten in bulk, so the index is not updated
+     * once per row; {@link #resumeFtsTriggers} restores them and rebuilds the index once.
+     * Run both inside the same transaction (SQLite DDL rolls back with it).
+     * @return whether there is an FTS index to resume
+     */
+    public static boolean suspendFtsTriggers(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + STUDENTS_FTS + "'")) {
+                if (!rs.next()) return false;
+            }
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_fts_ai");
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_fts_ad");
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_fts_au");
+            return true;
+        }
+    }
+
+    public static void resumeFtsTriggers(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String trigger : FTS_TRIGGERS) st.executeUpdate(trigger);
+            st.executeUpdate("INSERT INTO students_fts(students_fts) VALUES ('rebuild')");
+        }
+    }
+
+    /** The student_aggregates triggers of migration 8 (which keeps its own copy), for {@link #resumeAggregateTriggers}. */
+    private static final String[] AGGREGATE_TRIGGERS = {
+            """
+            CREATE TRIGGER IF NOT EXISTS students_agg_ai AFTER INSERT ON students BEGIN
+              INSERT INTO student_aggregates(programme, level, status, student_count, gpa_sum, gpa_sum_sq)
+              VALUES (new.programme, new.level, new.status, 1, new.gpa, new.gpa * new.gpa)
+              ON CONFLICT(programme, level, status) DO UPDATE SET
+                student_count = student_count + 1,
+                gpa_sum = gpa_sum + excluded.gpa_sum,
+                gpa_sum_sq = gpa_sum_sq + excluded.gpa_sum_sq;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_agg_ad AFTER DELETE ON students BEGIN
+              UPDATE student_aggregates
+              SET student_count = student_count - 1,
+                  gpa_sum = gpa_sum - old.gpa,
+                  gpa_sum_sq = gpa_sum_sq - old.gpa * old.gpa
+              WHERE programme = old.programme AND level = old.level AND status = old.status;
+              DELETE FROM student_aggregates
+              WHERE programme = old.programme AND level = old.level AND status = old.status
+                AND student_count <= 0;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_agg_au AFTER UPDATE OF programme, level, gpa, status ON students
+            WHEN old.programme IS NOT new.programme OR old.level IS NOT new.level
+              OR old.gpa IS NOT new.gpa OR old.status IS NOT new.status
+            BEGIN
+              UPDATE student_aggregates
+              SET student_count = student_count - 1,
+                  gpa_sum = gpa_sum - old.gpa,
+                  gpa_sum_sq = gpa_sum_sq - old.gpa * old.gpa
+              WHERE programme = old.programme AND level = old.level AND status = old.status;
+              DELETE FROM student_aggregates
+              WHERE programme = old.programme AND level = old.level AND status = old.status
+                AND student_count <= 0;
+              INSERT INTO student_aggregates(programme, level, status, student_count, gpa_sum, gpa_sum_sq)
+              VALUES (new.programme, new.level, new.status, 1, new.gpa, new.gpa * new.gpa)
+              ON CONFLICT(programme, level, status) DO UPDATE SET
+                student_count = student_count + 1,
+                gpa_sum = gpa_sum + excluded.gpa_sum,
+                gpa_sum_sq = gpa_sum_sq + excluded.gpa_sum_sq;
+            END
+            """
+    };
+
+    /**
+     * Drops the student_aggregates triggers before students is rewritten in bulk, so the
+     * aggregates are not updated once per row; {@link #resumeAggregateTriggers} restores them and
+     * rebuilds the table once. Run both inside the same transaction.
+     */
+    public static void suspendAggregateTriggers(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_agg_ai");
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_agg_ad");
+            st.executeUpdate("DROP TRIGGER IF EXISTS students_agg_au");
+        }
+    }
+
+    public static void resumeAggregateTriggers(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String trigger : AGGREGATE_TRIGGERS) st.executeUpdate(trigger);
+        }
+        rebuildAggregates(conn);
+    }
+
+    /**
+     * Count, GPA sum and GPA sum of squares per (programme, level, status). Triggers update it in
+     * the same transaction as every students write (upserts fire the UPDATE trigger), so readers
+     * aggregate a handful of rows instead of the whole table. Groups are removed when they empty.
+     */
+    private static void studentAggregates(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
             st.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS programmes (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  name TEXT NOT NULL UNIQUE
-                )
+                CREATE TABLE student_aggregates (
+                  programme TEXT NOT NULL,
+                  level INTEGER NOT NULL,
+                  status TEXT NOT NULL,
+                  student_count INTEGER NOT NULL,
+                  gpa_sum REAL NOT NULL,
+                  gpa_sum_sq REAL NOT NULL,
+                  PRIMARY KEY (programme, level, status)
+                ) WITHOUT ROWID
+            """);
+            st.executeUpdate("""
+                CREATE TRIGGER students_agg_ai AFTER INSERT ON students BEGIN
+                  INSERT INTO student_aggregates(programme, level, status, student_count, gpa_sum, gpa_sum_sq)
+                  VALUES (new.programme, new.level, new.status, 1, new.gpa, new.gpa * new.gpa)
+                  ON CONFLICT(programme, level, status) DO UPDATE SET
+                    student_count = student_count + 1,
+                    gpa_sum = gpa_sum + excluded.gpa_sum,
+                    gpa_sum_sq = gpa_sum_sq + excluded.gpa_sum_sq;
+                END
+            """);
+            st.executeUpdate("""
+                CREATE TRIGGER students_agg_ad AFTER DELETE ON students BEGIN
+                  UPDATE student_aggregates
+                  SET student_count = student_count - 1,
+                      gpa_sum = gpa_sum - old.gpa,
+                      gpa_sum_sq = gpa_sum_sq - old.gpa * old.gpa
+                  WHERE programme = old.programme AND level = old.level AND status = old.status;
+                  DELETE FROM student_aggregates
+                  WHERE programme = old.programme AND level = old.level AND status = old.status
+                    AND student_count <= 0;
+                END
+            """);
+            st.executeUpdate("""
+                CREATE TRIGGER students_agg_au AFTER UPDATE OF programme, level, gpa, status ON students
+                WHEN old.programme IS NOT new.programme OR old.level IS NOT new.level
+                  OR old.gpa IS NOT new.gpa OR old.status IS NOT new.status
+                BEGIN
+                  UPDATE student_aggregates
+                  SET student_count = student_count - 1,
+                      gpa_sum = gpa_sum - old.gpa,
+                      gpa_sum_sq = gpa_sum_sq - old.gpa * old.gpa
+                  WHERE programme = old.programme AND level = old.level AND status = old.status;
+                  DELETE FROM student_aggregates
+                  WHERE programme = old.programme AND level = old.level AND status = old.status
+                    AND student_count <= 0;
+                  INSERT INTO student_aggregates(programme, level, status, student_count, gpa_sum, gpa_sum_sq)
+                  VALUES (new.programme, new.level, new.status, 1, new.gpa, new.gpa * new.gpa)
+                  ON CONFLICT(programme, level, status) DO UPDATE SET
+                    student_count = student_count + 1,
+                    gpa_sum = gpa_sum + excluded.gpa_sum,
+                    gpa_sum_sq = gpa_sum_sq + excluded.gpa_sum_sq;
+                END
             """);
         }
+        rebuildAggregates(conn);
+    }
+
+    /**
+     * Recomputes student_aggregates from students, e.g. to clear floating-point drift in the
+     * running sums or after the table was edited by hand. Run inside a transaction.
+     * @return number of groups
+     */
+    public static int rebuildAggregates(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM student_aggregates");
+            return st.executeUpdate("""
+                INSERT INTO student_aggregates(programme, level, status, student_count, gpa_sum, gpa_sum_sq)
+                SELECT programme, level, status, COUNT(*), SUM(gpa), SUM(gpa * gpa)
+                FROM students GROUP BY programme, level, status
+            """);
+        }
+    }
+
+    private static void addColumnIfMissing(Statement st, String column, String ddl) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(settings)")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return;
+            }
+        }
+        st.executeUpdate("ALTER TABLE settings ADD COLUMN " + column + " " + ddl);
     }
 }
@@ -9,69 +9,11 @@ public class SettingsDAO {
 
     private final Connection conn;
 
+    /** The settings table and its default row are created by {@link Schema} migrations. */
     public SettingsDAO(Connection conn) {
         this.conn = conn;
-        ensureRowExists();
     }
 
-    private void ensureRowExists() {
-        ensureTable();
-        ensureColumns();
-        insertDefaultRow();
-    }
-
-    private void ensureTable() {
-        String sql = """
-        CREATE TABLE IF NOT EXISTS settings (
-            id INTEGER PRIMARY KEY,
-            at_risk_threshold REAL DEFAULT 2.0,
-            average_threshold REAL DEFAULT 3.0,
-            top_threshold REAL DEFAULT 3.5
-        )
-        """;
-        try (var st = conn.createStatement()) {
-            st.execute(sql);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private void ensureColumns() {
-        // If your table existed before without new columns, add them safely
-        addColumnIfMissing("average_threshold", "REAL DEFAULT 3.0");
-        addColumnIfMissing("top_threshold", "REAL DEFAULT 3.5");
-        addColumnIfMissing("at_risk_threshold", "REAL DEFAULT 2.0");
-    }
-
-    private void addColumnIfMissing(String column, String ddl) {
-        try (var rs = conn.createStatement().executeQuery("PRAGMA table_info(settings)")) {
-            while (rs.next()) {
-                String name = rs.getString("name");
-                if (column.equalsIgnoreCase(name)) return;
-            }
-        } catch (SQLException e) {
-            // if PRAGMA fails, let it throw later
-        }
-
-        String sql = "ALTER TABLE settings ADD COLUMN " + column + " " + ddl;
-        try (var st = conn.createStatement()) {
-            st.execute(sql);
-        } catch (SQLException ignored) {
-            // ignore if already exists or table just created with it
-        }
-    }
-
-    private void insertDefaultRow() {
-        try (var ps = conn.prepareStatement(
-                "INSERT OR IGNORE INTO settings (id, at_risk_threshold, average_threshold, top_threshold) VALUES (1, 2.0, 3.0, 3.5)"
-        )) {
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-
     // ======================
     // AT RISK
     // ======================
@@ -0,0 +1,90 @@
+package com.classmonitor.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements for ONE connection, keyed by SQL text.
+ *
+ * Not thread-safe: it is only used by whoever holds the connection's lease.
+ * Statements handed out must not be closed by the caller (close the ResultSet only).
+ */
+public final class StatementCache implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection conn;
+    private final Map<String, PreparedStatement> statements;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(Connection conn) {
+        this(conn, DEFAULT_CAPACITY);
+    }
+
+    public StatementCache(Connection conn, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.conn = conn;
+
+        // access-order map = LRU; the eldest statement is closed when we go over capacity
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                evictions++;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /** Returns a ready-to-bind statement for {@code sql}, preparing it on first use. */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !ps.isClosed()) {
+            hits++;
+            ps.clearParameters();
+            return ps;
+        }
+
+        misses++;
+        ps = conn.prepareStatement(sql);
+        statements.put(sql, ps);
+        return ps;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public long hitCount() {
+        return hits;
+    }
+
+    public long missCount() {
+        return misses;
+    }
+
+    public long evictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public void close() {
+        for (PreparedStatement ps : statements.values()) closeQuietly(ps);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignored) {
+            // statement is being discarded anyway
+        }
+    }
+}
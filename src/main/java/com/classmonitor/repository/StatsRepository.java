@@ -0,0 +1,19 @@
+package com.classmonitor.repository;
+
+import java.util.Map;
+
+/**
+ * Aggregate queries for the dashboard. Implementations compute in the database
+ * instead of loading students.
+ */
+public interface StatsRepository {
+
+    /** Totals, status split, GPA buckets (from the configured thresholds) and per-level averages. */
+    DashboardStats dashboardStats();
+
+    /** Count and GPA moments per programme, ordered by programme. */
+    Map<String, GpaSummary> programmeSummary();
+
+    /** Recomputes the maintained aggregates from the students table (repair). @return groups rebuilt */
+    int rebuildAggregates();
+}
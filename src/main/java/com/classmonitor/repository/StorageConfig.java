@@ -0,0 +1,47 @@
+package com.classmonitor.repository;
+
+import java.util.Set;
+
+/**
+ * How {@link ConnectionManager} opens and tunes SQLite.
+ *
+ * @param readers              read-only connections in the pool; 0 = one shared connection, no WAL
+ * @param synchronous          PRAGMA synchronous (OFF, NORMAL, FULL, EXTRA)
+ * @param mmapSizeBytes        PRAGMA mmap_size
+ * @param cacheSizeKb          page cache per connection, in KiB (PRAGMA cache_size = -kb)
+ * @param busyTimeoutMs        PRAGMA busy_timeout, also the wait limit for a free reader
+ * @param checkpointIntervalMs background WAL checkpoint period; 0 = only SQLite's auto-checkpoint
+ */
+public record StorageConfig(
+        int readers,
+        String synchronous,
+        long mmapSizeBytes,
+        int cacheSizeKb,
+        int busyTimeoutMs,
+        long checkpointIntervalMs
+) {
+    private static final Set<String> SYNC_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
+    public StorageConfig {
+        if (readers < 0) throw new IllegalArgumentException("readers must be >= 0");
+        if (synchronous == null || !SYNC_MODES.contains(synchronous.toUpperCase()))
+            throw new IllegalArgumentException("synchronous must be one of " + SYNC_MODES);
+        if (mmapSizeBytes < 0 || cacheSizeKb < 0 || busyTimeoutMs < 0 || checkpointIntervalMs < 0)
+            throw new IllegalArgumentException("sizes and timeouts must be >= 0");
+        synchronous = synchronous.toUpperCase();
+    }
+
+    /** One writer + 4 readers in WAL mode. NORMAL sync is durable enough with WAL. */
+    public static StorageConfig defaults() {
+        return new StorageConfig(4, "NORMAL", 256L * 1024 * 1024, 16 * 1024, 5000, 30_000);
+    }
+
+    /** Legacy behaviour: a single rollback-journal connection shared by everyone. */
+    public static StorageConfig singleConnection() {
+        return new StorageConfig(0, "FULL", 0, 2 * 1024, 5000, 0);
+    }
+
+    public boolean pooled() {
+        return readers > 0;
+    }
+}
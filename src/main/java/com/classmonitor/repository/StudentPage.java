@@ -0,0 +1,23 @@
+package com.classmonitor.repository;
+
+import com.classmonitor.domain.Student;
+
+import java.util.List;
+
+/**
+ * One page of students.
+ * @param next cursor for the following page, or null if this is the last page
+ */
+public record StudentPage(List<Student> rows, PageCursor next) {
+
+    /** Builds a page from up to {@code limit + 1} fetched rows; the extra row only signals more. */
+    public static StudentPage of(List<Student> fetched, int limit) {
+        if (fetched.size() <= limit) return new StudentPage(List.copyOf(fetched), null);
+        List<Student> rows = List.copyOf(fetched.subList(0, limit));
+        return new StudentPage(rows, PageCursor.after(rows.get(limit - 1)));
+    }
+
+    public boolean hasMore() {
+        return next != null;
+    }
+}
@@ -2,10 +2,20 @@ package com.classmonitor.repository;
 
 import com.classmonitor.domain.Student;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public interface StudentRepository {
+
+    /** Rows written per transaction when no commit size is given (also the import batch size). */
+    int DEFAULT_COMMIT_SIZE = 1000;
+
     boolean existsById(String studentId);
     void add(Student s);
     void update(Student s);
@@ -13,4 +23,136 @@ public interface StudentRepository {
     Optional<Student> findById(String studentId);
     List<Student> findAll();
     List<Student> search(String query); // by id or name
+
+    /** The stored students among {@code studentIds}, in no particular order. */
+    default List<Student> findByIds(Collection<String> studentIds) {
+        List<Student> found = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(studentIds)) findById(id).ifPresent(found::add);
+        return found;
+    }
+
+    /**
+     * Visits every student, ordered by ID, without building a list (exports).
+     * @return number of students visited
+     */
+    default long forEach(Consumer<? super Student> action) {
+        List<Student> all = findAll();
+        all.stream().sorted(Comparator.comparing(Student::studentId)).forEach(action);
+        return all.size();
+    }
+
+    /** Like {@link #forEach} for students with {@code fromGpa <= gpa < belowGpa}, ordered by GPA then ID. */
+    default long forEachInGpaRange(double fromGpa, double belowGpa, Consumer<? super Student> action) {
+        List<Student> matching = findAll().stream()
+                .filter(s -> s.gpa() >= fromGpa && s.gpa() < belowGpa)
+                .sorted(Comparator.comparingDouble(Student::gpa).thenComparing(Student::studentId))
+                .toList();
+        matching.forEach(action);
+        return matching.size();
+    }
+
+    /**
+     * The {@code k} highest GPAs, ties broken by ID; {@code programme}/{@code level} filter when
+     * not null. With {@code withTies}, every student sharing the k-th GPA is included.
+     */
+    default List<Student> topByGpa(String programme, Integer level, int k, boolean withTies) {
+        if (k < 1) return List.of();
+        List<Student> sorted = findAll().stream()
+                .filter(s -> programme == null || programme.equals(s.programme()))
+                .filter(s -> level == null || level == s.level())
+                .sorted(Comparator.comparingDouble(Student::gpa).reversed().thenComparing(Student::studentId))
+                .toList();
+        if (sorted.size() <= k) return sorted;
+        int end = k;
+        if (withTies) {
+            double cut = sorted.get(k - 1).gpa();
+            while (end < sorted.size() && sorted.get(end).gpa() == cut) end++;
+        }
+        return sorted.subList(0, end);
+    }
+
+    /** Number of students, without loading them. */
+    default long count() {
+        return findAll().size();
+    }
+
+    /**
+     * Keyset pagination: up to {@code limit} students that come after {@code after}
+     * in {@code sort} order ({@code after == null} for the first page).
+     */
+    default StudentPage findPage(PageCursor after, int limit, StudentSort sort) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+
+        List<Student> page = findAll().stream()
+                .filter(s -> after == null || sort.isAfter(s, after))
+                .sorted(sort.comparator())
+                .limit(limit + 1L)
+                .toList();
+        return StudentPage.of(page, limit);
+    }
+
+    /**
+     * Insert-or-update every student (keyed by student ID).
+     * @return number of rows written
+     */
+    default int upsertAll(Iterable<Student> students) {
+        return upsertAll(students, DEFAULT_COMMIT_SIZE);
+    }
+
+    /**
+     * Insert-or-update every student. Transactional implementations commit every
+     * {@code commitSize} rows and roll back a failing chunk, keeping the chunks before it;
+     * this default writes row by row, so rows before a failure are kept.
+     * @return number of rows written
+     */
+    default int upsertAll(Iterable<Student> students, int commitSize) {
+        if (commitSize < 1) throw new IllegalArgumentException("commitSize must be at least 1");
+        int n = 0;
+        for (Student s : students) {
+            if (existsById(s.studentId())) update(s);
+            else add(s);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Runs {@code transaction}, which writes through this repository inside a transaction the
+     * caller commits (an import batch saved with its checkpoint). Implementations that tell
+     * others about writes hold that back until it has returned, so nobody is shown rows that
+     * could still roll back.
+     */
+    default <T> T deferNotifications(Supplier<T> transaction) {
+        return transaction.get();
+    }
+
+    /**
+     * Insert-or-update, skipping students whose stored row already has the same
+     * {@link Student#contentHash()}. A later duplicate in the list is compared with the earlier
+     * one. Transactional implementations write the list in one transaction; this default writes
+     * row by row, so rows before a failure are kept.
+     */
+    default UpsertCounts upsertChanged(List<Student> students) {
+        return upsertChanged(students, s -> {});
+    }
+
+    /** {@link #upsertChanged(List)}, handing each row that was actually written to {@code written}. */
+    default UpsertCounts upsertChanged(List<Student> students, Consumer<? super Student> written) {
+        int inserted = 0, updated = 0, unchanged = 0;
+        for (Student s : students) {
+            Optional<Student> stored = findById(s.studentId());
+            if (stored.isEmpty()) {
+                add(s);
+                inserted++;
+            } else if (stored.get().contentHash() == s.contentHash()) {
+                unchanged++;
+                continue;
+            } else {
+                update(s);
+                updated++;
+            }
+            written.accept(s);
+        }
+        return new UpsertCounts(inserted, updated, unchanged);
+    }
 }
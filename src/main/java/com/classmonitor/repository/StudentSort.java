@@ -0,0 +1,43 @@
+package com.classmonitor.repository;
+
+import com.classmonitor.domain.Student;
+
+import java.util.Comparator;
+
+/**
+ * Orderings supported by {@link StudentRepository#findPage}. Each is a total order
+ * (student_id breaks ties) so keyset pagination never skips or repeats a row.
+ */
+public enum StudentSort {
+    NAME(Comparator.comparing(Student::fullName).thenComparing(Student::studentId)),
+    GPA_ASC(Comparator.comparingDouble(Student::gpa).thenComparing(Student::studentId)),
+    GPA_DESC(Comparator.comparingDouble(Student::gpa).thenComparing(Student::studentId).reversed());
+
+    private final Comparator<Student> comparator;
+
+    StudentSort(Comparator<Student> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<Student> comparator() {
+        return comparator;
+    }
+
+    /** True if {@code s} comes strictly after the cursor position in this order. */
+    public boolean isAfter(Student s, PageCursor after) {
+        return switch (this) {
+            case NAME -> {
+                int c = s.fullName().compareTo(after.fullName());
+                yield c > 0 || (c == 0 && s.studentId().compareTo(after.studentId()) > 0);
+            }
+            case GPA_ASC -> {
+                int c = Double.compare(s.gpa(), after.gpa());
+                yield c > 0 || (c == 0 && s.studentId().compareTo(after.studentId()) > 0);
+            }
+            case GPA_DESC -> {
+                int c = Double.compare(s.gpa(), after.gpa());
+                yield c < 0 || (c == 0 && s.studentId().compareTo(after.studentId()) < 0);
+            }
+        };
+    }
+}
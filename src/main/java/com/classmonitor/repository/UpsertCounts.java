@@ -0,0 +1,19 @@
+package com.classmonitor.repository;
+
+/** Outcome of a change-detecting upsert: only inserted and updated rows were written. */
+public record UpsertCounts(int inserted, int updated, int unchanged) {
+
+    public static final UpsertCounts NONE = new UpsertCounts(0, 0, 0);
+
+    public int written() {
+        return inserted + updated;
+    }
+
+    public int total() {
+        return inserted + updated + unchanged;
+    }
+
+    public UpsertCounts plus(UpsertCounts o) {
+        return new UpsertCounts(inserted + o.inserted, updated + o.updated, unchanged + o.unchanged);
+    }
+}
@@ -0,0 +1,191 @@
+package com.classmonitor.repository.sqlite;
+
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.ImportJobRepository;
+import com.classmonitor.repository.UpsertCounts;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public final class SqliteImportJobRepository implements ImportJobRepository {
+
+    private static final String COLUMNS = """
+        id, file_path, fingerprint, file_size, byte_offset, offset_line, last_line,
+        success_count, failure_count, inserted_count, updated_count, unchanged_count, status, updated_at
+        """;
+
+    private final ConnectionManager db;
+
+    public SqliteImportJobRepository() {
+        this(ConnectionManager.get());
+    }
+
+    public SqliteImportJobRepository(ConnectionManager db) {
+        this.db = db;
+    }
+
+    @Override
+    public ImportJob start(String filePath, String fingerprint, long fileSize) {
+        String supersede = "UPDATE import_jobs SET status = ?, updated_at = datetime('now') "
+                + "WHERE fingerprint = ? AND status <> ?";
+        String insert = """
+            INSERT INTO import_jobs(file_path, fingerprint, file_size, status, started_at, updated_at)
+            VALUES(?, ?, ?, ?, datetime('now'), datetime('now'))
+            """;
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+            try {
+                PreparedStatement ps = lease.prepare(supersede);
+                ps.setString(1, ImportJob.SUPERSEDED);
+                ps.setString(2, fingerprint);
+                ps.setString(3, ImportJob.COMPLETED);
+                ps.executeUpdate();
+
+                ps = lease.prepare(insert);
+                ps.setString(1, filePath);
+                ps.setString(2, fingerprint);
+                ps.setLong(3, fileSize);
+                ps.setString(4, ImportJob.RUNNING);
+                ps.executeUpdate();
+
+                long id;
+                try (ResultSet rs = lease.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                    rs.next();
+                    id = rs.getLong(1);
+                }
+                if (ownTx) c.commit();
+                return findById(id).orElseThrow();
+            } catch (SQLException | RuntimeException e) {
+                if (ownTx) c.rollback();
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("start import job failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T commitBatch(long jobId, Supplier<T> batch, Function<? super T, ImportJob.Checkpoint> checkpoint) {
+        String sql = """
+            UPDATE import_jobs
+            SET byte_offset=?, offset_line=?, last_line=?, success_count=?, failure_count=?,
+                inserted_count=?, updated_count=?, unchanged_count=?, updated_at=datetime('now')
+            WHERE id=?
+            """;
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+            try {
+                // the upsert sees the open transaction and leaves committing to us
+                T result = batch.get();
+                ImportJob.Checkpoint cp = checkpoint.apply(result);
+
+                PreparedStatement ps = lease.prepare(sql);
+                ps.setLong(1, cp.byteOffset());
+                ps.setLong(2, cp.offsetLine());
+                ps.setLong(3, cp.lastLine());
+                ps.setInt(4, cp.successCount());
+                ps.setInt(5, cp.failureCount());
+                ps.setInt(6, cp.changes().inserted());
+                ps.setInt(7, cp.changes().updated());
+                ps.setInt(8, cp.changes().unchanged());
+                ps.setLong(9, jobId);
+                ps.executeUpdate();
+
+                if (ownTx) c.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                if (ownTx) c.rollback();
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (RuntimeException e) {
+            throw e; // the batch's own error, already descriptive
+        } catch (Exception e) {
+            throw new RuntimeException("commitBatch failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void finish(long jobId, String status, int successCount, int failureCount) {
+        String sql = """
+            UPDATE import_jobs
+            SET status=?, success_count=?, failure_count=?, updated_at=datetime('now')
+            WHERE id=?
+            """;
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, status);
+            ps.setInt(2, successCount);
+            ps.setInt(3, failureCount);
+            ps.setLong(4, jobId);
+            ps.executeUpdate();
+        } catch (Exception e) {
+            throw new RuntimeException("finish import job failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<ImportJob> findResumable(String fingerprint) {
+        String sql = "SELECT " + COLUMNS + """
+            FROM import_jobs
+            WHERE fingerprint = ? AND status IN (?, ?, ?) AND last_line > 1
+            ORDER BY id DESC LIMIT 1
+            """;
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, fingerprint);
+            ps.setString(2, ImportJob.RUNNING);
+            ps.setString(3, ImportJob.CANCELLED);
+            ps.setString(4, ImportJob.FAILED);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("findResumable failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<ImportJob> findById(long jobId) {
+        String sql = "SELECT " + COLUMNS + " FROM import_jobs WHERE id = ?";
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setLong(1, jobId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("findById failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static ImportJob map(ResultSet rs) throws SQLException {
+        return new ImportJob(
+                rs.getLong("id"),
+                rs.getString("file_path"),
+                rs.getString("fingerprint"),
+                rs.getLong("file_size"),
+                rs.getLong("byte_offset"),
+                rs.getLong("offset_line"),
+                rs.getLong("last_line"),
+                rs.getInt("success_count"),
+                rs.getInt("failure_count"),
+                new UpsertCounts(rs.getInt("inserted_count"), rs.getInt("updated_count"), rs.getInt("unchanged_count")),
+                rs.getString("status"),
+                rs.getString("updated_at")
+        );
+    }
+}
@@ -0,0 +1,138 @@
+package com.classmonitor.repository.sqlite;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.DashboardStats;
+import com.classmonitor.repository.GpaSummary;
+import com.classmonitor.repository.Schema;
+import com.classmonitor.repository.SettingsDAO;
+import com.classmonitor.repository.StatsRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class SqliteStatsRepository implements StatsRepository {
+
+    private final ConnectionManager db;
+
+    public SqliteStatsRepository() {
+        this(ConnectionManager.get());
+    }
+
+    public SqliteStatsRepository(ConnectionManager db) {
+        this.db = db;
+    }
+
+    /**
+     * Totals and per-level averages come from student_aggregates (one row per programme, level
+     * and status, so the cost does not grow with the student count). The threshold buckets
+     * depend on settings, so they are two range counts on the (gpa, student_id) index.
+     * Everything runs in one read transaction, so all parts see the same snapshot.
+     */
+    @Override
+    public DashboardStats dashboardStats() {
+        String totalsSql = """
+            SELECT COALESCE(SUM(student_count), 0),
+                   COALESCE(SUM(CASE WHEN %s THEN student_count END), 0),
+                   COALESCE(SUM(gpa_sum), 0)
+            FROM student_aggregates
+            """.formatted(Student.ACTIVE_SQL);
+        String bucketsSql = """
+            SELECT (SELECT COUNT(*) FROM students WHERE gpa < ?),
+                   (SELECT COUNT(*) FROM students WHERE gpa >= ?)
+            """;
+        String levelsSql = """
+            SELECT level, SUM(gpa_sum) / SUM(student_count)
+            FROM student_aggregates GROUP BY level ORDER BY level
+            """;
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+            try {
+                SettingsDAO settings = new SettingsDAO(c);
+                double atRiskBelow = settings.getAtRiskThreshold();
+                double topFrom = settings.getTopThreshold();
+
+                long total, active, atRisk, top;
+                double gpaSum;
+                try (ResultSet rs = lease.prepare(totalsSql).executeQuery()) {
+                    rs.next();
+                    total = rs.getLong(1);
+                    active = rs.getLong(2);
+                    gpaSum = rs.getDouble(3);
+                }
+
+                PreparedStatement ps = lease.prepare(bucketsSql);
+                ps.setDouble(1, atRiskBelow);
+                ps.setDouble(2, topFrom);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    atRisk = rs.getLong(1);
+                    top = rs.getLong(2);
+                }
+
+                Map<Integer, Double> byLevel = new TreeMap<>();
+                try (ResultSet rs = lease.prepare(levelsSql).executeQuery()) {
+                    while (rs.next()) byLevel.put(rs.getInt(1), rs.getDouble(2));
+                }
+
+                double avg = total == 0 ? 0 : gpaSum / total;
+                return new DashboardStats(total, active, total - active, avg,
+                        atRiskBelow, topFrom, atRisk, total - atRisk - top, top, byLevel);
+            } finally {
+                if (ownTx) {
+                    c.commit();
+                    c.setAutoCommit(true);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("dashboardStats failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, GpaSummary> programmeSummary() {
+        String sql = """
+            SELECT programme, SUM(student_count), SUM(gpa_sum), SUM(gpa_sum_sq)
+            FROM student_aggregates GROUP BY programme ORDER BY programme
+            """;
+        try (ConnectionManager.Lease lease = db.read();
+             ResultSet rs = lease.prepare(sql).executeQuery()) {
+            Map<String, GpaSummary> out = new LinkedHashMap<>();
+            while (rs.next()) {
+                out.put(rs.getString(1), new GpaSummary(rs.getLong(2), rs.getDouble(3), rs.getDouble(4)));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("programmeSummary failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int rebuildAggregates() {
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+            try {
+                int groups = Schema.rebuildAggregates(c);
+                if (ownTx) c.commit();
+                return groups;
+            } catch (SQLException | RuntimeException e) {
+                if (ownTx) c.rollback();
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("rebuildAggregates failed: " + e.getMessage(), e);
+        }
+    }
+}
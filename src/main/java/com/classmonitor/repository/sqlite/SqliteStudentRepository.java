@@ -1,21 +1,61 @@
 package com.classmonitor.repository.sqlite;
 
 import com.classmonitor.domain.Student;
-import com.classmonitor.repository.Db;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.PageCursor;
+import com.classmonitor.repository.Schema;
+import com.classmonitor.repository.StudentPage;
 import com.classmonitor.repository.StudentRepository;
+import com.classmonitor.repository.StudentSort;
+import com.classmonitor.repository.UpsertCounts;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public final class SqliteStudentRepository implements StudentRepository {
 
+    // IDs per stored-hash lookup; short chunks are padded so there is only one statement to cache
+    private static final int ID_CHUNK = 256;
+    private static final String STORED_HASHES_SQL = "SELECT student_id, row_hash FROM students WHERE student_id IN ("
+            + "?,".repeat(ID_CHUNK - 1) + "?)";
+    private static final String FIND_BY_IDS_SQL = "SELECT * FROM students WHERE student_id IN ("
+            + "?,".repeat(ID_CHUNK - 1) + "?)";
+
+    private final ConnectionManager db;
+
+    // null until first checked
+    private volatile Boolean ftsAvailable;
+
+    // date_added is kept on conflict, same as update()
+    private static final String UPSERT_SQL = """
+        INSERT INTO students(student_id, full_name, programme, level, gpa, email, phone, date_added, status, row_hash)
+        VALUES(?,?,?,?,?,?,?,?,?,?)
+        ON CONFLICT(student_id) DO UPDATE SET
+          full_name=excluded.full_name, programme=excluded.programme, level=excluded.level,
+          gpa=excluded.gpa, email=excluded.email, phone=excluded.phone, status=excluded.status,
+          row_hash=excluded.row_hash
+        """;
+
+    public SqliteStudentRepository() {
+        this(ConnectionManager.get());
+    }
+
+    public SqliteStudentRepository(ConnectionManager db) {
+        this.db = db;
+    }
+
     @Override
     public boolean existsById(String studentId) {
         String sql = "SELECT 1 FROM students WHERE student_id = ?";
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, studentId);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -25,14 +65,36 @@ public final class SqliteStudentRepository implements StudentRepository {
         }
     }
 
+    @Override
+    public List<Student> findByIds(Collection<String> studentIds) {
+        List<Student> found = new ArrayList<>();
+        if (studentIds.isEmpty()) return found;
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(FIND_BY_IDS_SQL);
+            List<String> ids = List.copyOf(new LinkedHashSet<>(studentIds));
+            for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+                int to = Math.min(from + ID_CHUNK, ids.size());
+                for (int i = 0; i < ID_CHUNK; i++) {
+                    ps.setString(i + 1, ids.get(Math.min(from + i, to - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) found.add(map(rs));
+                }
+            }
+            return found;
+        } catch (Exception e) {
+            throw new RuntimeException("findByIds failed: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public void add(Student s) {
         String sql = """
-            INSERT INTO students(student_id, full_name, programme, level, gpa, email, phone, date_added, status)
-            VALUES(?,?,?,?,?,?,?,?,?)
+            INSERT INTO students(student_id, full_name, programme, level, gpa, email, phone, date_added, status, row_hash)
+            VALUES(?,?,?,?,?,?,?,?,?,?)
             """;
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
             fill(ps, s);
             ps.executeUpdate();
         } catch (Exception e) {
@@ -44,11 +106,11 @@ public final class SqliteStudentRepository implements StudentRepository {
     public void update(Student s) {
         String sql = """
             UPDATE students
-            SET full_name=?, programme=?, level=?, gpa=?, email=?, phone=?, status=?
+            SET full_name=?, programme=?, level=?, gpa=?, email=?, phone=?, status=?, row_hash=?
             WHERE student_id=?
             """;
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
 
             ps.setString(1, s.fullName());
             ps.setString(2, s.programme());
@@ -57,7 +119,8 @@ public final class SqliteStudentRepository implements StudentRepository {
             ps.setString(5, s.email());
             ps.setString(6, s.phone());
             ps.setString(7, s.status());
-            ps.setString(8, s.studentId());
+            ps.setLong(8, s.contentHash());
+            ps.setString(9, s.studentId());
 
             ps.executeUpdate();
         } catch (Exception e) {
@@ -68,8 +131,8 @@ public final class SqliteStudentRepository implements StudentRepository {
     @Override
     public void delete(String studentId) {
         String sql = "DELETE FROM students WHERE student_id = ?";
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.write()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, studentId);
             ps.executeUpdate();
         } catch (Exception e) {
@@ -80,8 +143,8 @@ public final class SqliteStudentRepository implements StudentRepository {
     @Override
     public Optional<Student> findById(String studentId) {
         String sql = "SELECT * FROM students WHERE student_id = ?";
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
             ps.setString(1, studentId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return Optional.empty();
@@ -95,9 +158,8 @@ public final class SqliteStudentRepository implements StudentRepository {
     @Override
     public List<Student> findAll() {
         String sql = "SELECT * FROM students ORDER BY full_name ASC";
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (ConnectionManager.Lease lease = db.read();
+             ResultSet rs = lease.prepare(sql).executeQuery()) {
 
             List<Student> out = new ArrayList<>();
             while (rs.next()) out.add(map(rs));
@@ -108,8 +170,207 @@ public final class SqliteStudentRepository implements StudentRepository {
         }
     }
 
+    /** Streams from a forward-only cursor: only the current row is in memory. */
+    @Override
+    public long forEach(Consumer<? super Student> action) {
+        String sql = "SELECT * FROM students ORDER BY student_id";
+        try (ConnectionManager.Lease lease = db.read();
+             ResultSet rs = lease.prepare(sql).executeQuery()) {
+            long n = 0;
+            while (rs.next()) {
+                action.accept(map(rs));
+                n++;
+            }
+            return n;
+        } catch (SQLException e) {
+            throw new RuntimeException("forEach failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Range scan over idx_students_gpa_id, streamed like {@link #forEach}. */
+    @Override
+    public long forEachInGpaRange(double fromGpa, double belowGpa, Consumer<? super Student> action) {
+        String sql = "SELECT * FROM students WHERE gpa >= ? AND gpa < ? ORDER BY gpa, student_id";
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setDouble(1, fromGpa);
+            ps.setDouble(2, belowGpa);
+            try (ResultSet rs = ps.executeQuery()) {
+                long n = 0;
+                while (rs.next()) {
+                    action.accept(map(rs));
+                    n++;
+                }
+                return n;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("forEachInGpaRange failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * ORDER BY gpa DESC LIMIT k read backwards off a GPA index: (gpa, student_id) without a
+     * filter, (programme, gpa, student_id) or (programme, level, gpa, student_id) with one, so
+     * only k rows (plus ties) are visited. A level-only filter walks the GPA index and skips.
+     */
+    @Override
+    public List<Student> topByGpa(String programme, Integer level, int k, boolean withTies) {
+        if (k < 1) return List.of();
+        String where = programme == null
+                ? (level == null ? "" : " WHERE level = ?")
+                : (level == null ? " WHERE programme = ?" : " WHERE programme = ? AND level = ?");
+        String order = " ORDER BY gpa DESC, student_id";
+        String sql = withTies
+                // the k-th GPA is the cut; fewer than k rows means no cut
+                ? "SELECT * FROM students" + where + (where.isEmpty() ? " WHERE " : " AND ")
+                        + "gpa >= COALESCE((SELECT gpa FROM students" + where + order + " LIMIT 1 OFFSET ?), gpa)"
+                        + order
+                : "SELECT * FROM students" + where + order + " LIMIT ?";
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            int i = 1;
+            for (int pass = withTies ? 2 : 1; pass > 0; pass--) {
+                if (programme != null) ps.setString(i++, programme);
+                if (level != null) ps.setInt(i++, level);
+            }
+            ps.setInt(i, withTies ? k - 1 : k);
+
+            List<Student> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(map(rs));
+            }
+            return out;
+        } catch (SQLException e) {
+            throw new RuntimeException("topByGpa failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long count() {
+        String sql = "SELECT COUNT(*) FROM students";
+        try (ConnectionManager.Lease lease = db.read();
+             ResultSet rs = lease.prepare(sql).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (Exception e) {
+            throw new RuntimeException("count failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keyset page: seeks past the cursor with a row-value comparison on the sort index,
+     * so page N costs the same as page 1.
+     */
+    @Override
+    public StudentPage findPage(PageCursor after, int limit, StudentSort sort) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+
+        String sql = switch (sort) {
+            case NAME -> "SELECT * FROM students"
+                    + (after == null ? "" : " WHERE (full_name, student_id) > (?, ?)")
+                    + " ORDER BY full_name, student_id LIMIT ?";
+            case GPA_ASC -> "SELECT * FROM students"
+                    + (after == null ? "" : " WHERE (gpa, student_id) > (?, ?)")
+                    + " ORDER BY gpa, student_id LIMIT ?";
+            case GPA_DESC -> "SELECT * FROM students"
+                    + (after == null ? "" : " WHERE (gpa, student_id) < (?, ?)")
+                    + " ORDER BY gpa DESC, student_id DESC LIMIT ?";
+        };
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            int i = 1;
+            if (after != null) {
+                if (sort == StudentSort.NAME) ps.setString(i++, after.fullName());
+                else ps.setDouble(i++, after.gpa());
+                ps.setString(i++, after.studentId());
+            }
+            ps.setInt(i, limit + 1); // one extra row tells us whether there is a next page
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Student> out = new ArrayList<>(Math.min(limit + 1, 1024));
+                while (rs.next()) out.add(map(rs));
+                return StudentPage.of(out, limit);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("findPage failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Full-text search on id, name, email and programme. Every word typed is a prefix
+     * ("ali men" finds "Alice Mensah"); id and name hits rank above email/programme hits.
+     * Falls back to a LIKE scan when FTS5 is unavailable or the query has no searchable words.
+     */
     @Override
     public List<Student> search(String query) {
+        String match = ftsMatchExpression(query);
+        if (match == null || !ftsAvailable()) return searchLike(query);
+
+        // bm25 weights follow column order: student_id, full_name, email, programme
+        String sql = """
+            SELECT s.* FROM students_fts f
+            JOIN students s ON s.rowid = f.rowid
+            WHERE students_fts MATCH ?
+            ORDER BY bm25(students_fts, 10.0, 5.0, 1.0, 2.0), s.full_name ASC
+            """;
+
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, match);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Student> out = new ArrayList<>();
+                while (rs.next()) out.add(map(rs));
+                return out;
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("search failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds an FTS5 query: each word becomes a quoted prefix term, all terms required.
+     * Returns null if the input has no letters or digits.
+     */
+    static String ftsMatchExpression(String query) {
+        if (query == null) return null;
+
+        StringBuilder out = new StringBuilder();
+        int i = 0, n = query.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(query.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(query.charAt(i))) i++;
+            if (i > start) {
+                if (!out.isEmpty()) out.append(' ');
+                out.append('"').append(query, start, i).append("\"*");
+            }
+        }
+        return out.isEmpty() ? null : out.toString();
+    }
+
+    private boolean ftsAvailable() {
+        Boolean ok = ftsAvailable;
+        if (ok != null) return ok;
+
+        String sql = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, Schema.STUDENTS_FTS);
+            try (ResultSet rs = ps.executeQuery()) {
+                ok = rs.next();
+            }
+        } catch (Exception e) {
+            ok = false;
+        }
+        ftsAvailable = ok;
+        return ok;
+    }
+
+    /** Substring match on id or name. Full scan - only used without FTS5. */
+    private List<Student> searchLike(String query) {
         String sql = """
             SELECT * FROM students
             WHERE student_id LIKE ? OR LOWER(full_name) LIKE ?
@@ -117,8 +378,8 @@ public final class SqliteStudentRepository implements StudentRepository {
             """;
         String q = "%" + query.trim().toLowerCase() + "%";
 
-        try (Connection c = Db.get();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        try (ConnectionManager.Lease lease = db.read()) {
+            PreparedStatement ps = lease.prepare(sql);
 
             ps.setString(1, "%" + query.trim() + "%");
             ps.setString(2, q);
@@ -130,8 +391,126 @@ public final class SqliteStudentRepository implements StudentRepository {
             }
 
         } catch (Exception e) {
-            throw new RuntimeException("search failed: " + e.getMessage(), e);
+            throw new RuntimeException("searchLike failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int upsertAll(Iterable<Student> students, int commitSize) {
+        if (commitSize < 1) throw new IllegalArgumentException("commitSize must be at least 1");
+
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+
+            // Only manage the transaction if the caller is not already inside one
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+
+            int written = 0;
+            PreparedStatement ps = lease.prepare(UPSERT_SQL);
+            try {
+                int pending = 0;
+                for (Student s : students) {
+                    fill(ps, s);
+                    ps.addBatch();
+                    if (++pending == commitSize) {
+                        ps.executeBatch();
+                        if (ownTx) c.commit();
+                        written += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                    if (ownTx) c.commit();
+                    written += pending;
+                }
+                return written;
+            } catch (SQLException | RuntimeException e) {
+                ps.clearBatch();
+                if (ownTx) c.rollback();
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("upsertAll failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One lookup of the stored hashes per {@value #ID_CHUNK} IDs, then a single upsert batch
+     * for the rows that are new or differ. Rows written before row_hash existed have no hash
+     * and count as updated once.
+     */
+    @Override
+    public UpsertCounts upsertChanged(List<Student> students, Consumer<? super Student> written) {
+        if (students.isEmpty()) return UpsertCounts.NONE;
+
+        try (ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+
+            PreparedStatement ps = lease.prepare(UPSERT_SQL);
+            try {
+                List<String> ids = new ArrayList<>(students.size());
+                for (Student s : students) ids.add(s.studentId());
+                Map<String, Long> stored = storedHashes(lease, ids);
+
+                List<Student> writes = new ArrayList<>();
+                int inserted = 0, updated = 0, unchanged = 0;
+                for (Student s : students) {
+                    long hash = s.contentHash();
+                    boolean known = stored.containsKey(s.studentId());
+                    Long old = stored.put(s.studentId(), hash);
+                    if (!known) {
+                        inserted++;
+                    } else if (old != null && old == hash) {
+                        unchanged++;
+                        continue;
+                    } else {
+                        updated++;
+                    }
+                    fill(ps, s);
+                    ps.addBatch();
+                    writes.add(s);
+                }
+                if (inserted + updated > 0) ps.executeBatch();
+                if (ownTx) c.commit();
+                writes.forEach(written);
+                return new UpsertCounts(inserted, updated, unchanged);
+            } catch (SQLException | RuntimeException e) {
+                ps.clearBatch();
+                if (ownTx) c.rollback();
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("upsertChanged failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** row_hash (null if never set) of each of {@code ids} that is stored. */
+    private static Map<String, Long> storedHashes(ConnectionManager.Lease lease, Collection<String> studentIds)
+            throws SQLException {
+        Map<String, Long> found = new HashMap<>();
+        PreparedStatement ps = lease.prepare(STORED_HASHES_SQL);
+        List<String> ids = List.copyOf(studentIds);
+        for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+            int to = Math.min(from + ID_CHUNK, ids.size());
+            for (int i = 0; i < ID_CHUNK; i++) {
+                ps.setString(i + 1, ids.get(Math.min(from + i, to - 1)));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long hash = rs.getLong(2);
+                    found.put(rs.getString(1), rs.wasNull() ? null : hash);
+                }
+            }
         }
+        return found;
     }
 
     private static void fill(PreparedStatement ps, Student s) throws SQLException {
@@ -144,6 +523,7 @@ public final class SqliteStudentRepository implements StudentRepository {
         ps.setString(7, s.phone());
         ps.setString(8, s.dateAddedIso());
         ps.setString(9, s.status()); // ✅ fixed
+        ps.setLong(10, s.contentHash());
     }
 
     private static Student map(ResultSet rs) throws SQLException {
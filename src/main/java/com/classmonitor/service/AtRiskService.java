@@ -0,0 +1,149 @@
+package com.classmonitor.service;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.SettingsDAO;
+import com.classmonitor.repository.StudentRepository;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * At-risk students (GPA below the threshold in Settings) as range scans on the GPA index.
+ *
+ * The threshold is read once and cached; change it through {@link #setThreshold} so open
+ * screens hear about it. A change only queries the GPA band between the old and new
+ * threshold, which is exactly the set of students that entered or left the at-risk list.
+ */
+public final class AtRiskService {
+
+    /** Called on the thread that changed the threshold. */
+    public interface Listener {
+        void atRiskChanged(Change change);
+    }
+
+    /** Students that became at risk ({@code entered}) or stopped being at risk ({@code left}), lowest GPA first. */
+    public record Change(double oldThreshold, double newThreshold, List<Student> entered, List<Student> left) {}
+
+    private final StudentRepository repo;
+    private final ConnectionManager db;
+
+    // screens come and go with their scenes, so they are only held weakly
+    private final List<WeakReference<Listener>> listeners = new CopyOnWriteArrayList<>();
+
+    private double threshold = Double.NaN; // not read yet
+
+    public AtRiskService(StudentRepository repo) {
+        this(repo, ConnectionManager.get());
+    }
+
+    public AtRiskService(StudentRepository repo, ConnectionManager db) {
+        this.repo = repo;
+        this.db = db;
+    }
+
+    /* =========================
+       QUERIES
+       ========================= */
+
+    public synchronized double threshold() {
+        if (Double.isNaN(threshold)) {
+            try (ConnectionManager.Lease lease = db.read()) {
+                threshold = new SettingsDAO(lease.connection()).getAtRiskThreshold();
+            } catch (Exception e) {
+                throw new RuntimeException("read at-risk threshold failed: " + e.getMessage(), e);
+            }
+        }
+        return threshold;
+    }
+
+    /** Students below the current threshold, lowest GPA first. */
+    public List<Student> atRisk() {
+        return atRisk(threshold());
+    }
+
+    /** Students with GPA below {@code below}, lowest GPA first. */
+    public List<Student> atRisk(double below) {
+        return band(Double.NEGATIVE_INFINITY, below);
+    }
+
+    /* =========================
+       CHANGES
+       ========================= */
+
+    /** Saves the threshold in Settings and tells listeners who entered or left the list. */
+    public Change setThreshold(double newThreshold) {
+        return setThreshold(newThreshold, settings -> {});
+    }
+
+    /**
+     * Like {@link #setThreshold(double)}, with {@code alsoSave} writing the other settings in the
+     * same transaction; listeners only hear about it once that has committed.
+     */
+    public Change setThreshold(double newThreshold, Consumer<SettingsDAO> alsoSave) {
+        Change change;
+        synchronized (this) {
+            double old = threshold();
+            try (ConnectionManager.Lease lease = db.write()) {
+                Connection c = lease.connection();
+                boolean ownTx = c.getAutoCommit();
+                if (ownTx) c.setAutoCommit(false);
+                try {
+                    SettingsDAO settings = new SettingsDAO(c);
+                    settings.setAtRiskThreshold(newThreshold);
+                    alsoSave.accept(settings);
+                    if (ownTx) c.commit();
+                } catch (SQLException | RuntimeException e) {
+                    if (ownTx) c.rollback();
+                    throw e;
+                } finally {
+                    if (ownTx) c.setAutoCommit(true);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("save at-risk threshold failed: " + e.getMessage(), e);
+            }
+            threshold = newThreshold;
+
+            List<Student> moved = band(Math.min(old, newThreshold), Math.max(old, newThreshold));
+            change = newThreshold > old
+                    ? new Change(old, newThreshold, moved, List.of())
+                    : new Change(old, newThreshold, List.of(), moved);
+        }
+        if (change.oldThreshold() != change.newThreshold()) notifyListeners(change);
+        return change;
+    }
+
+    /** Forgets the cached threshold, e.g. after settings were restored from a snapshot. */
+    public synchronized void reload() {
+        threshold = Double.NaN;
+    }
+
+    /** Held weakly: keep a reference to {@code l} for as long as it should be called. */
+    public void addListener(Listener l) {
+        listeners.add(new WeakReference<>(l));
+    }
+
+    public void removeListener(Listener l) {
+        listeners.removeIf(ref -> ref.get() == null || ref.get() == l);
+    }
+
+    private void notifyListeners(Change change) {
+        for (WeakReference<Listener> ref : listeners) {
+            Listener l = ref.get();
+            if (l == null) listeners.remove(ref);
+            else l.atRiskChanged(change);
+        }
+    }
+
+    // fromGpa <= gpa < belowGpa, straight off the GPA index
+    private List<Student> band(double fromGpa, double belowGpa) {
+        List<Student> out = new ArrayList<>();
+        if (fromGpa < belowGpa) repo.forEachInGpaRange(fromGpa, belowGpa, out::add);
+        return out;
+    }
+}
@@ -0,0 +1,18 @@
+package com.classmonitor.service;
+
+/**
+ * Cooperative cancel flag for long-running work such as CSV imports.
+ * Cancel from any thread; the worker checks it at safe points (for imports, batch boundaries).
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,263 @@
+package com.classmonitor.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 reader: quoted fields may contain the delimiter, {@code ""} and line breaks.
+ *
+ * Input is read through one reusable char buffer and the unescaped text of the current record
+ * is packed into another, so reading a record allocates nothing. Fields are exposed as offsets
+ * into {@link #chars()} or as views; call {@link #string(int)} only for the columns you need.
+ * Everything returned for a record is only valid until the next call to {@link #next()}.
+ *
+ * Lenient where real files are messy: a leading BOM is skipped, CR, LF and CRLF all end a
+ * record, completely empty lines are skipped, spaces before an opening quote are ignored and
+ * text after a closing quote is kept.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private final char delimiter;
+
+    // current record: unescaped field text back to back, field i = text[starts[i], ends[i])
+    private char[] text = new char[1024];
+    private int textLen;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+
+    private long line = 1;      // physical line the reader is on
+    private long recordLine;    // physical line the current record started on
+
+    /** Detects ',' or ';' from the first line (whichever occurs more often outside quotes). */
+    public CsvReader(Reader in) throws IOException {
+        this.in = in;
+        skipBom();
+        this.delimiter = detectDelimiter();
+    }
+
+    public CsvReader(Reader in, char delimiter) throws IOException {
+        this.in = in;
+        skipBom();
+        this.delimiter = delimiter;
+    }
+
+    /** For a slice from the middle of a file: no BOM check, line numbers start at {@code firstLine}. */
+    CsvReader(Reader in, char delimiter, long firstLine) {
+        this.in = in;
+        this.delimiter = delimiter;
+        this.line = firstLine;
+    }
+
+    /**
+     * Advances to the next record.
+     * @return false at end of input
+     * @throws IOException on read errors or a quoted field that is never closed
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) return false;
+            recordLine = line;
+            textLen = 0;
+            fieldCount = 0;
+            if (parseRecord()) return true;
+            // empty line: keep going
+        }
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** 1-based physical line where the current record starts (records may span lines). */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    /** Backing array of the current record; see {@link #start(int)} / {@link #end(int)}. */
+    public char[] chars() {
+        return text;
+    }
+
+    public int start(int field) {
+        checkField(field);
+        return starts[field];
+    }
+
+    public int end(int field) {
+        checkField(field);
+        return ends[field];
+    }
+
+    /** Untrimmed view of a field, backed by the record buffer. */
+    public CharSequence field(int field) {
+        checkField(field);
+        return CharBuffer.wrap(text, starts[field], ends[field] - starts[field]);
+    }
+
+    /** Field value with surrounding whitespace removed; "" for a missing field. */
+    public String string(int field) {
+        if (field < 0 || field >= fieldCount) return "";
+        int s = starts[field], e = ends[field];
+        while (s < e && text[s] <= ' ') s++;
+        while (e > s && text[e - 1] <= ' ') e--;
+        return s == e ? "" : new String(text, s, e - s);
+    }
+
+    /** True if the field is missing or only whitespace. */
+    public boolean isBlank(int field) {
+        if (field < 0 || field >= fieldCount) return true;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            if (text[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    /** Fields joined with the delimiter, for error messages. Allocates. */
+    public String recordText() {
+        StringBuilder sb = new StringBuilder(textLen + fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) sb.append(delimiter);
+            sb.append(text, starts[i], ends[i] - starts[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /* =========================
+       PARSER
+       ========================= */
+
+    /** Reads one record into text/starts/ends. Returns false for an empty line. */
+    private boolean parseRecord() throws IOException {
+        int fieldStart = 0;
+        boolean inQuotes = false;
+        boolean any = false;
+
+        while (true) {
+            if (pos >= limit && !fill()) {
+                if (inQuotes) {
+                    throw new IOException("Unclosed quoted field in record starting on line " + recordLine);
+                }
+                endField(fieldStart);
+                return true; // last record without a trailing newline
+            }
+            char c = buf[pos++];
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (pos >= limit) fill();
+                    if (pos < limit && buf[pos] == '"') {
+                        pos++;
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    append(c);
+                }
+                continue;
+            }
+
+            if (c == delimiter) {
+                endField(fieldStart);
+                fieldStart = textLen;
+                any = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    if (pos >= limit) fill();
+                    if (pos < limit && buf[pos] == '\n') pos++;
+                }
+                line++;
+                if (!any) return false;
+                endField(fieldStart);
+                return true;
+            } else if (c == '"' && blankSince(fieldStart)) {
+                textLen = fieldStart; // drop spaces before the opening quote
+                inQuotes = true;
+                any = true;
+            } else {
+                append(c);
+                any = true;
+            }
+        }
+    }
+
+    private boolean blankSince(int from) {
+        for (int i = from; i < textLen; i++) {
+            if (text[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (textLen == text.length) text = Arrays.copyOf(text, text.length * 2);
+        text[textLen++] = c;
+    }
+
+    private void endField(int fieldStart) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = fieldStart;
+        ends[fieldCount] = textLen;
+        fieldCount++;
+    }
+
+    /** Refills the buffer if it is empty. Returns false at end of input. */
+    private boolean fill() throws IOException {
+        if (pos < limit) return true;
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        pos = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    private void skipBom() throws IOException {
+        if (fill() && buf[pos] == '\uFEFF') pos++;
+    }
+
+    /** Counts ',' and ';' outside quotes on the first line that is in the buffer. */
+    private char detectDelimiter() throws IOException {
+        fill();
+        int commas = 0, semis = 0;
+        boolean inQuotes = false;
+        for (int i = pos; i < limit; i++) {
+            char c = buf[i];
+            if (c == '"') inQuotes = !inQuotes;
+            else if (!inQuotes && (c == '\n' || c == '\r')) break;
+            else if (!inQuotes && c == ',') commas++;
+            else if (!inQuotes && c == ';') semis++;
+        }
+        return semis > commas ? ';' : ',';
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("field " + field + " of " + fieldCount);
+        }
+    }
+}
@@ -1,20 +1,79 @@
 package com.classmonitor.service;
 
+import com.classmonitor.ValidationException;
 import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.ImportJobRepository;
+import com.classmonitor.repository.StudentRepository;
+import com.classmonitor.repository.sqlite.SqliteImportJobRepository;
 import com.classmonitor.repository.sqlite.SqliteStudentRepository;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 public class CsvService {
 
     private static final Path DATA_DIR = Paths.get("data");
 
-    private final SqliteStudentRepository repo = new SqliteStudentRepository();
+    // Files at least this large are imported through a memory mapping
+    public static final long MMAP_THRESHOLD_BYTES = 64L << 20;
+
+    // Mapped CSV columns (header names lower-cased, spaces removed); the first five are required
+    private static final String[] COLUMNS = {
+            "studentid", "fullname", "programme", "level", "gpa", "email", "phone", "date", "status"};
+    private static final int REQUIRED_COLUMNS = 5;
+    private static final int COL_ID = 0, COL_NAME = 1, COL_PROGRAMME = 2, COL_LEVEL = 3, COL_GPA = 4,
+            COL_EMAIL = 5, COL_PHONE = 6, COL_DATE = 7, COL_STATUS = 8;
+
+    private static final StudentValidator IMPORT_RULES = StudentValidator.forImport();
+
+    // bytes hashed at each end of the file for its fingerprint
+    private static final int FINGERPRINT_BYTES = 64 * 1024;
+
+    private final StudentRepository repo;
+    private final ImportJobRepository jobs;
+    private final int batchSize;
+    private final int workers;
+    private final Path errorDir;
 
     public CsvService() {
+        this(StudentRepository.DEFAULT_COMMIT_SIZE);
+    }
+
+    public CsvService(int batchSize) {
+        this(new SqliteStudentRepository(), batchSize);
+    }
+
+    public CsvService(StudentRepository repo, int batchSize) {
+        this(repo, batchSize, defaultWorkers());
+    }
+
+    /** @param workers parse/validate threads in the import pipeline */
+    public CsvService(StudentRepository repo, int batchSize, int workers) {
+        this(repo, batchSize, workers, DATA_DIR);
+    }
+
+    /** @param errorDir where import error reports ({@code import_errors_<timestamp>.csv}) are written */
+    public CsvService(StudentRepository repo, int batchSize, int workers, Path errorDir) {
+        this(repo, new SqliteImportJobRepository(), batchSize, workers, errorDir);
+    }
+
+    /** @param jobs import checkpoints, on the same database as {@code repo}; null disables resuming */
+    public CsvService(StudentRepository repo, ImportJobRepository jobs, int batchSize, int workers, Path errorDir) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+        if (workers < 1) throw new IllegalArgumentException("workers must be at least 1");
+        this.repo = repo;
+        this.jobs = jobs;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.errorDir = errorDir;
         try { Files.createDirectories(DATA_DIR); } catch (Exception ignored) {}
     }
 
@@ -22,220 +81,287 @@ public class CsvService {
        IMPORT (REAL)
        ========================= */
     public ImportResult importStudents(File file) {
+        return importStudents(file, null, new CancellationToken());
+    }
 
-        int success = 0;
-        int failed = 0;
-        StringBuilder log = new StringBuilder();
+    /**
+     * @param progress called a few times a second from an import thread (may be null)
+     * @param cancel   stops the import at the next batch boundary; committed batches are kept
+     */
+    public ImportResult importStudents(File file, Consumer<ImportProgress> progress, CancellationToken cancel) {
+        // small files are not worth a mapping (which also keeps the file locked on Windows until GC)
+        if (file.length() >= MMAP_THRESHOLD_BYTES) return importStudentsMapped(file, progress, cancel);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
 
-            String headerLine = br.readLine();
-            if (headerLine == null) {
+            if (!csv.next()) {
                 return new ImportResult(0, 1, "Empty CSV file.");
             }
+            int[] columns = mapColumns(csv);
+            return newPipeline(progress, cancel, startJob(file)).run(csv, columns, in::count, file.length());
+
+        } catch (Exception e) {
+            return new ImportResult(0, 1, "Failed to read CSV: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Import through a memory-mapped file: the reader thread only finds record boundaries and
+     * the pipeline workers decode (UTF-8) and parse the slices in parallel. Heap use depends on
+     * the chunk size and worker count, not on the file size.
+     */
+    public ImportResult importStudentsMapped(File file) {
+        return importStudentsMapped(file, null, new CancellationToken());
+    }
 
-            headerLine = headerLine.replace("\uFEFF", "").trim(); // remove BOM
-            String delimiter = detectDelimiter(headerLine);
-
-            Map<String, Integer> header = parseHeader(headerLine, delimiter);
-
-            // required columns (minimum)
-            require(header, "studentid");
-            require(header, "fullname");
-            require(header, "programme");
-            require(header, "level");
-            require(header, "gpa");
-
-            String line;
-            int rowNum = 1;
-
-            while ((line = br.readLine()) != null) {
-                rowNum++;
-                if (line.trim().isEmpty()) continue;
-
-                try {
-                    List<String> cols = splitCsvLine(line, delimiter);
-
-                    String studentId = get(cols, header, "studentid");
-                    String fullName  = get(cols, header, "fullname");
-                    String programme = get(cols, header, "programme");
-                    String levelTxt  = get(cols, header, "level");
-                    String gpaTxt    = get(cols, header, "gpa");
-                    String email     = optional(cols, header, "email");
-                    String phone     = optional(cols, header, "phone");
-                    String date      = optional(cols, header, "date", LocalDate.now().toString());
-                    String status    = optional(cols, header, "status", "Active");
-
-                    // ---- Validation (same style as your app) ----
-                    if (studentId.isBlank()) throw new RuntimeException("Student ID is required.");
-                    if (fullName.isBlank())  throw new RuntimeException("Full name is required.");
-                    if (programme.isBlank()) throw new RuntimeException("Programme is required.");
-
-                    int level;
-                    try { level = Integer.parseInt(levelTxt.trim()); }
-                    catch (Exception e) { throw new RuntimeException("Level must be a number (e.g. 100,200...)."); }
-
-                    double gpa;
-                    try { gpa = Double.parseDouble(gpaTxt.trim()); }
-                    catch (Exception e) { throw new RuntimeException("GPA must be a number (e.g. 3.10)."); }
-
-                    if (!email.isBlank()) {
-                        if (!email.contains("@") || !email.contains(".")) {
-                            throw new RuntimeException("Email must contain @ and a dot.");
-                        }
-                    }
-
-                    if (!phone.isBlank()) {
-                        if (!phone.matches("\\d{10,15}")) {
-                            throw new RuntimeException("Phone number must be 10 to 15 digits (digits only).");
-                        }
-                    }
-
-                    Student s = new Student(
-                            studentId.trim(),
-                            fullName.trim(),
-                            programme.trim(),
-                            level,
-                            gpa,
-                            email.trim(),
-                            phone.trim(),
-                            date.trim(),
-                            status.isBlank() ? "Active" : status.trim()
-                    );
-
-                    // UPSERT (update if exists, else add)
-                    if (repo.existsById(s.studentId())) repo.update(s);
-                    else repo.add(s);
-
-                    success++;
-
-                } catch (Exception ex) {
-                    failed++;
-                    log.append("Row ").append(rowNum)
-                            .append(": ").append(ex.getMessage())
-                            .append(" | Data: ").append(line)
-                            .append("\n");
-                }
+    public ImportResult importStudentsMapped(File file, Consumer<ImportProgress> progress, CancellationToken cancel) {
+        try (MappedCsvFile mapped = new MappedCsvFile(file.toPath())) {
+
+            MappedCsvFile.Slice headerSlice = mapped.nextRecord();
+            if (headerSlice == null) {
+                return new ImportResult(0, 1, "Empty CSV file.");
+            }
+            CsvReader header = new CsvReader(new StringReader(
+                    StandardCharsets.UTF_8.decode(headerSlice.bytes()).toString()));
+            if (!header.next()) {
+                return new ImportResult(0, 1, "Empty CSV file.");
             }
+            int[] columns = mapColumns(header);
+            return newPipeline(progress, cancel, startJob(file)).run(mapped, header.delimiter(), columns);
 
         } catch (Exception e) {
             return new ImportResult(0, 1, "Failed to read CSV: " + e.getMessage());
         }
-
-        if (log.isEmpty()) log.append("Import completed successfully.");
-        return new ImportResult(success, failed, log.toString());
     }
 
     /* =========================
-       EXPORT (REAL)
+       RESUME
        ========================= */
-    public void exportAllStudents() {
-        List<Student> students = repo.findAll();
-        writeStudentsCsv(DATA_DIR.resolve("students_all.csv"), students);
+
+    /** The interrupted import of this exact file (same size, date and content hash), if any. */
+    public Optional<ImportJob> findResumableImport(File file) {
+        if (jobs == null) return Optional.empty();
+        try {
+            return jobs.findResumable(fingerprint(file));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
     }
 
-    /* =========================
-       INTERNAL HELPERS
-       ========================= */
+    /**
+     * Continues {@code job} after its last committed batch: the mapped file is read from the
+     * checkpoint's offset, rows up to its last line are skipped and the counts carry on.
+     */
+    public ImportResult resumeImport(File file, ImportJob job, Consumer<ImportProgress> progress, CancellationToken cancel) {
+        try (MappedCsvFile mapped = new MappedCsvFile(file.toPath())) {
+            if (!fingerprint(file).equals(job.fingerprint())) {
+                return new ImportResult(0, 0, "The file has changed since the interrupted import; import it again instead.");
+            }
+            MappedCsvFile.Slice headerSlice = mapped.nextRecord();
+            if (headerSlice == null) {
+                return new ImportResult(0, 1, "Empty CSV file.");
+            }
+            CsvReader header = new CsvReader(new StringReader(
+                    StandardCharsets.UTF_8.decode(headerSlice.bytes()).toString()));
+            if (!header.next()) {
+                return new ImportResult(0, 1, "Empty CSV file.");
+            }
+            int[] columns = mapColumns(header);
+            if (job.byteOffset() > mapped.position()) mapped.seek(job.byteOffset(), job.offsetLine());
+            return newPipeline(progress, cancel, job).run(mapped, header.delimiter(), columns);
 
-    private static String detectDelimiter(String headerLine) {
-        int commas = count(headerLine, ',');
-        int semis  = count(headerLine, ';');
-        return (semis > commas) ? ";" : ",";
+        } catch (Exception e) {
+            return new ImportResult(0, 1, "Failed to read CSV: " + e.getMessage());
+        }
     }
 
-    private static int count(String s, char c) {
-        int n = 0;
-        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == c) n++;
-        return n;
+    /** New checkpointed job for this file, or null without a job repository. */
+    private ImportJob startJob(File file) throws IOException {
+        if (jobs == null) return null;
+        return jobs.start(file.getAbsolutePath(), fingerprint(file), file.length());
     }
 
-    private static Map<String, Integer> parseHeader(String headerLine, String delimiter) {
-        List<String> cols = splitCsvLine(headerLine, delimiter);
-        Map<String, Integer> map = new HashMap<>();
-        for (int i = 0; i < cols.size(); i++) {
-            String key = cols.get(i).trim().toLowerCase().replace(" ", "");
-            map.put(key, i);
+    /** size:lastModified:SHA-256 of the first and last {@link #FINGERPRINT_BYTES}. */
+    private static String fingerprint(File file) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return map;
+        long size = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] buf = new byte[(int) Math.min(FINGERPRINT_BYTES, size)];
+            raf.readFully(buf);
+            sha.update(buf);
+            if (size > FINGERPRINT_BYTES) {
+                raf.seek(Math.max(FINGERPRINT_BYTES, size - FINGERPRINT_BYTES));
+                buf = new byte[(int) (size - raf.getFilePointer())];
+                raf.readFully(buf);
+                sha.update(buf);
+            }
+        }
+        return size + ":" + file.lastModified() + ":" + HexFormat.of().formatHex(sha.digest());
     }
 
-    private static void require(Map<String, Integer> header, String key) {
-        if (!header.containsKey(key)) {
-            throw new RuntimeException("Missing required column in header: " + key);
+    private ImportPipeline newPipeline(Consumer<ImportProgress> progress, CancellationToken cancel, ImportJob job) {
+        ImportPipeline pipeline = new ImportPipeline(repo, batchSize, workers, CsvService::toStudent,
+                progress, cancel, errorDir);
+        return job == null ? pipeline : pipeline.withCheckpoints(jobs, job);
+    }
+
+    /** Record field index per mapped column (-1 if absent); throws if a required column is missing. */
+    private static int[] mapColumns(CsvReader headerRecord) {
+        Map<String, Integer> header = parseHeader(headerRecord);
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = i < REQUIRED_COLUMNS ? require(header, COLUMNS[i]) : header.getOrDefault(COLUMNS[i], -1);
         }
+        return columns;
     }
 
-    private static String get(List<String> cols, Map<String, Integer> header, String key) {
-        Integer idx = header.get(key);
-        if (idx == null || idx >= cols.size()) return "";
-        return cols.get(idx).trim();
+    /** Validates one row (values in COLUMNS order, already trimmed). Runs on pipeline workers. */
+    private static Student toStudent(String[] v) {
+        String date   = v[COL_DATE].isEmpty() ? LocalDate.now().toString() : v[COL_DATE];
+        String status = v[COL_STATUS].isEmpty() ? "Active" : canonicalStatus(v[COL_STATUS]);
+
+        // same rules as the student form; every violation is reported
+        List<String> errors = null;
+        errors = addError(errors, IMPORT_RULES.idError(v[COL_ID]));
+        errors = addError(errors, IMPORT_RULES.nameError(v[COL_NAME]));
+        errors = addError(errors, IMPORT_RULES.programmeError(v[COL_PROGRAMME]));
+
+        int level = 0;
+        try {
+            level = Integer.parseInt(v[COL_LEVEL]);
+            errors = addError(errors, IMPORT_RULES.levelError(level));
+        } catch (NumberFormatException e) {
+            errors = addError(errors, "Level must be a number (e.g. 100,200...).");
+        }
+
+        double gpa = 0;
+        try {
+            gpa = Double.parseDouble(v[COL_GPA]);
+            errors = addError(errors, IMPORT_RULES.gpaError(gpa));
+        } catch (NumberFormatException e) {
+            errors = addError(errors, "GPA must be a number (e.g. 3.10).");
+        }
+
+        errors = addError(errors, IMPORT_RULES.emailError(v[COL_EMAIL]));
+        errors = addError(errors, IMPORT_RULES.phoneError(v[COL_PHONE]));
+        errors = addError(errors, IMPORT_RULES.dateError(date));
+        errors = addError(errors, IMPORT_RULES.statusError(status));
+        if (errors != null) throw new ValidationException(errors);
+
+        return new Student(v[COL_ID], v[COL_NAME], v[COL_PROGRAMME], level, gpa,
+                v[COL_EMAIL], v[COL_PHONE], date, status);
     }
 
-    private static String optional(List<String> cols, Map<String, Integer> header, String key) {
-        return get(cols, header, key);
+    private static List<String> addError(List<String> errors, String error) {
+        if (error == null) return errors;
+        if (errors == null) errors = new ArrayList<>(2);
+        errors.add(error);
+        return errors;
     }
 
-    private static String optional(List<String> cols, Map<String, Integer> header, String key, String def) {
-        String v = get(cols, header, key);
-        return v.isBlank() ? def : v;
+    /** "active" / "INACTIVE" as stored; anything else is left for validation to reject. */
+    private static String canonicalStatus(String status) {
+        if (status.equalsIgnoreCase("Active")) return "Active";
+        if (status.equalsIgnoreCase("Inactive")) return "Inactive";
+        return status;
     }
 
-    // Handles commas/semicolons with basic quotes support
-    private static List<String> splitCsvLine(String line, String delimiter) {
-        List<String> out = new ArrayList<>();
-        StringBuilder cur = new StringBuilder();
-        boolean inQuotes = false;
-        char delim = delimiter.charAt(0);
+    /* =========================
+       EXPORT (REAL)
+       ========================= */
+    /** Writes every student to data/students_all.csv. */
+    public ExportResult exportAllStudents() {
+        return exportStudents(DATA_DIR.resolve("students_all.csv"), repo::forEach);
+    }
 
-        for (int i = 0; i < line.length(); i++) {
-            char ch = line.charAt(i);
+    /** Writes every student to {@code out}; gzip-compressed when the name ends with ".gz". */
+    public ExportResult exportStudents(Path out) {
+        return exportStudents(out, repo::forEach);
+    }
 
-            if (ch == '"') {
-                inQuotes = !inQuotes;
-                continue;
-            }
+    /** Writes students with {@code fromGpa <= gpa < belowGpa}, by GPA, to {@code out}. */
+    public ExportResult exportStudents(Path out, double fromGpa, double belowGpa) {
+        return exportStudents(out, sink -> repo.forEachInGpaRange(fromGpa, belowGpa, sink));
+    }
 
-            if (!inQuotes && ch == delim) {
-                out.add(cur.toString());
-                cur.setLength(0);
-            } else {
-                cur.append(ch);
+    // rows go straight from the repository cursor into the encoder, nothing is collected
+    private static ExportResult exportStudents(Path out, ToLongFunction<Consumer<Student>> source) {
+        boolean done = false;
+        try {
+            StudentCsvWriter writer = new StudentCsvWriter(out);
+            try (writer) {
+                source.applyAsLong(writer);
             }
-        }
-        out.add(cur.toString());
-        return out;
-    }
-
-    private void writeStudentsCsv(Path out, List<Student> students) {
-        try (BufferedWriter bw = Files.newBufferedWriter(out)) {
-            bw.write("studentId,fullName,programme,level,gpa,email,phone,date,status\n");
-            for (Student s : students) {
-                bw.write(String.join(",",
-                        esc(s.studentId()),
-                        esc(s.fullName()),
-                        esc(s.programme()),
-                        String.valueOf(s.level()),
-                        String.valueOf(s.gpa()),
-                        esc(s.email()),
-                        esc(s.phone()),
-                        esc(s.dateEnrolled()),
-                        esc(s.status())
-                ));
-                bw.newLine();
+            ExportResult result = new ExportResult(out, writer.rows(), writer.bytes(), StudentCsvWriter.isGzip(out));
+            done = true;
+            return result;
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Export failed: " + e.getMessage(), e);
+        } finally {
+            // no half-written exports, whatever stopped the rows (a database error is a RuntimeException)
+            if (!done) {
+                try { Files.deleteIfExists(out); } catch (IOException ignored) {}
             }
-        } catch (Exception ignored) {}
+        }
     }
 
-    private String esc(String v) {
-        if (v == null) return "";
-        String t = v.trim();
-        if (t.contains(",") || t.contains("\"")) {
-            t = t.replace("\"", "\"\"");
-            return "\"" + t + "\"";
+    /* =========================
+       INTERNAL HELPERS
+       ========================= */
+
+    // leave a core for the reader and one for the writer
+    private static int defaultWorkers() {
+        return Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() - 2));
+    }
+
+    /** Header names lower-cased without spaces ("Student ID" -> "studentid") to column index. */
+    private static Map<String, Integer> parseHeader(CsvReader csv) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < csv.fieldCount(); i++) {
+            String key = csv.string(i).toLowerCase().replace(" ", "");
+            map.put(key, i);
         }
-        return t;
+        return map;
     }
 
+    private static int require(Map<String, Integer> header, String key) {
+        Integer idx = header.get(key);
+        if (idx == null) {
+            throw new RuntimeException("Missing required column in header: " + key);
+        }
+        return idx;
+    }
+
+    /** Counts bytes pulled from the file, for import progress. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
 
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
 }
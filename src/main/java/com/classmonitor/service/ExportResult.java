@@ -0,0 +1,11 @@
+package com.classmonitor.service;
+
+import java.nio.file.Path;
+
+/** What an export wrote; {@code bytes} is the file size (compressed for .gz). */
+public record ExportResult(Path file, long rows, long bytes, boolean gzip) {
+
+    public String summary() {
+        return rows + " rows, " + bytes + " bytes" + (gzip ? " (gzip)" : "") + " -> " + file.toAbsolutePath();
+    }
+}
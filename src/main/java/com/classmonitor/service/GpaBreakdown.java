@@ -0,0 +1,26 @@
+package com.classmonitor.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/** {@link GpaStats} for all students, per programme, per level and per programme and level; maps are sorted. */
+public record GpaBreakdown(GpaStats overall,
+                           Map<String, GpaStats> byProgramme,
+                           Map<Integer, GpaStats> byLevel,
+                           Map<String, Map<Integer, GpaStats>> byProgrammeAndLevel) {
+
+    /** A copy with unmodifiable maps of {@link GpaStats#readOnly()} stats, safe to share. */
+    public GpaBreakdown readOnly() {
+        return new GpaBreakdown(overall.readOnly(), readOnly(byProgramme, GpaStats::readOnly),
+                readOnly(byLevel, GpaStats::readOnly),
+                readOnly(byProgrammeAndLevel, levels -> readOnly(levels, GpaStats::readOnly)));
+    }
+
+    private static <K, V> Map<K, V> readOnly(Map<K, V> map, Function<V, V> value) {
+        Map<K, V> out = new TreeMap<>();
+        map.forEach((k, v) -> out.put(k, value.apply(v)));
+        return Collections.unmodifiableMap(out);
+    }
+}
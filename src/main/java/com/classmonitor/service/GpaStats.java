@@ -0,0 +1,221 @@
+package com.classmonitor.service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One-pass GPA statistics for a group of students: count, mean, variance, min/max, quantiles and
+ * histograms of any bin width. Collectors built over separate partitions combine with
+ * {@link #merge}, so a large cohort can be split, collected in parallel and merged.
+ *
+ * Mean and variance use Welford's update (and Chan's formula to merge), which stays accurate
+ * where sum-of-squares loses digits. Quantiles and histograms come from a count per 0.01 GPA
+ * step, sized for [0, {@link StudentValidator#MAX_GPA}] and grown to the largest GPA seen (up
+ * to 10). Form GPAs have two decimals, so nearly every value lands on a step and the sketch
+ * merges by adding counts. Anything else (an imported 3.125, a negative or larger value) is
+ * counted under its exact value instead, so quantiles are always exact GPAs of the group.
+ * Not thread-safe; give each partition its own.
+ */
+public final class GpaStats {
+
+    private static final int STEPS_PER_POINT = 100;
+
+    /** Width of one sketch step, the precision form GPAs have. */
+    public static final double RESOLUTION = 1.0 / STEPS_PER_POINT;
+
+    private static final int INITIAL_STEPS = (int) Math.round(StudentValidator.MAX_GPA * STEPS_PER_POINT) + 1;
+    private static final int MAX_STEPS = 10 * STEPS_PER_POINT + 1;
+
+    // a histogram spanning more bins than this leaves its empty bins out
+    private static final int MAX_FILLED_BINS = 1000;
+
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // ---- sketch: students per 0.01 step, plus values that are not on a step ----
+    private long[] steps = new long[INITIAL_STEPS];
+    private TreeMap<Double, Long> offSteps; // null until needed
+
+    private boolean readOnly;
+
+    public void add(double gpa) {
+        checkWritable();
+        if (Double.isNaN(gpa)) return;
+        count++;
+        double delta = gpa - mean;
+        mean += delta / count;
+        m2 += delta * (gpa - mean);
+        if (gpa < min) min = gpa;
+        if (gpa > max) max = gpa;
+        int i = step(gpa);
+        if (i < 0) {
+            offSteps().merge(gpa, 1L, Long::sum);
+        } else {
+            if (i >= steps.length) grow(i + 1);
+            steps[i]++;
+        }
+    }
+
+    /** Adds everything {@code other} has collected to this one; {@code other} is unchanged. */
+    public GpaStats merge(GpaStats other) {
+        checkWritable();
+        if (other.count == 0) return this;
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long n = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / n;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (other.steps.length > steps.length) grow(other.steps.length);
+        for (int i = 0; i < other.steps.length; i++) steps[i] += other.steps[i];
+        if (other.offSteps != null) other.offSteps.forEach((gpa, n) -> offSteps().merge(gpa, n, Long::sum));
+        return this;
+    }
+
+    /** A copy that rejects {@link #add} and {@link #merge}, safe to share between callers. */
+    public GpaStats readOnly() {
+        if (readOnly) return this;
+        GpaStats copy = new GpaStats().merge(this);
+        copy.readOnly = true;
+        return copy;
+    }
+
+    /* =========================
+       RESULTS
+       ========================= */
+
+    public long count() {
+        return count;
+    }
+
+    /** NaN when empty. */
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /** Population variance; NaN when empty. */
+    public double variance() {
+        return count == 0 ? Double.NaN : Math.max(0, m2 / count);
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    /** NaN when empty. */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** NaN when empty. */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Nearest-rank quantile: the smallest GPA with at least {@code q} of the students at or
+     * below it. NaN when empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("quantile must be between 0 and 1");
+        if (count == 0) return Double.NaN;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+
+        // walk the steps and the off-step values together, in GPA order
+        Iterator<Map.Entry<Double, Long>> off = offSteps == null ? null : offSteps.entrySet().iterator();
+        Map.Entry<Double, Long> nextOff = off != null && off.hasNext() ? off.next() : null;
+        int i = 0;
+        while (true) {
+            double onStep = i < steps.length ? value(i) : Double.POSITIVE_INFINITY;
+            if (nextOff != null && nextOff.getKey() < onStep) {
+                if ((seen += nextOff.getValue()) >= rank) return nextOff.getKey();
+                nextOff = off.hasNext() ? off.next() : null;
+            } else {
+                if ((seen += steps[i]) >= rank) return onStep;
+                i++;
+            }
+        }
+    }
+
+    public double p10() {
+        return quantile(0.10);
+    }
+
+    public double median() {
+        return quantile(0.50);
+    }
+
+    public double p90() {
+        return quantile(0.90);
+    }
+
+    /**
+     * Students per GPA bin of {@code width} (rounded to a whole number of sketch steps), keyed
+     * by the bin's lower bound, from the lowest to the highest non-empty bin.
+     */
+    public Map<Double, Long> histogram(double width) {
+        if (!(width > 0)) throw new IllegalArgumentException("bin width must be positive");
+        int stepsPerBin = Math.max(1, (int) Math.round(width * STEPS_PER_POINT));
+        TreeMap<Long, Long> bins = new TreeMap<>();
+        for (int i = 0; i < steps.length; i++) {
+            if (steps[i] > 0) bins.merge((long) (i / stepsPerBin), steps[i], Long::sum);
+        }
+        if (offSteps != null) {
+            offSteps.forEach((gpa, n) ->
+                    bins.merge((long) Math.floor(gpa * STEPS_PER_POINT / stepsPerBin), n, Long::sum));
+        }
+
+        Map<Double, Long> out = new TreeMap<>();
+        if (bins.isEmpty()) return out;
+        long first = bins.firstKey();
+        long last = bins.lastKey();
+        if (last - first < MAX_FILLED_BINS) {
+            for (long b = first; b <= last; b++) out.put(binStart(b, stepsPerBin), bins.getOrDefault(b, 0L));
+        } else {
+            bins.forEach((b, n) -> out.put(binStart(b, stepsPerBin), n));
+        }
+        return out;
+    }
+
+    /** The step {@code gpa} is exactly on, or -1 if it is between steps or outside [0, 10]. */
+    private static int step(double gpa) {
+        double scaled = gpa * STEPS_PER_POINT;
+        long i = Math.round(scaled);
+        if (i < 0 || i >= MAX_STEPS || Math.abs(scaled - i) > 1e-6) return -1;
+        return (int) i;
+    }
+
+    // i / 100.0 reads back as the decimal GPA (3.1, not 3.1000000000000005)
+    private static double value(int step) {
+        return step / (double) STEPS_PER_POINT;
+    }
+
+    private static double binStart(long bin, int stepsPerBin) {
+        return bin * stepsPerBin / (double) STEPS_PER_POINT;
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("read-only GpaStats");
+    }
+
+    private void grow(int minSteps) {
+        steps = Arrays.copyOf(steps, Math.max(minSteps, Math.min(MAX_STEPS, steps.length * 2)));
+    }
+
+    private TreeMap<Double, Long> offSteps() {
+        if (offSteps == null) offSteps = new TreeMap<>();
+        return offSteps;
+    }
+}
@@ -0,0 +1,121 @@
+package com.classmonitor.service;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Top-k row selection by GPA with a bounded min-heap over primitive arrays: O(n log k) with no
+ * boxing or full sort. Equal GPAs are ordered by {@code tieBreak}, which compares two rows
+ * (negative when the first ranks higher); the snapshot passes student ID order, the same
+ * ORDER BY gpa DESC, student_id the SQL top-k uses. The heap root is the worst kept row.
+ *
+ * With ties, rows equal to the k-th GPA that did not fit are kept aside and returned too.
+ */
+final class GpaTopK {
+
+    private final int k;
+    private final boolean withTies;
+    private final IntBinaryOperator tieBreak;
+
+    // ---- heap (index 0 = worst kept) ----
+    private final int[] rows;
+    private final double[] gpas;
+    private int n;
+
+    // ---- rows tied with the heap root that did not fit (withTies only) ----
+    private int[] ties = new int[0];
+    private int tieCount;
+
+    GpaTopK(int k, boolean withTies, IntBinaryOperator tieBreak) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        this.k = k;
+        this.withTies = withTies;
+        this.tieBreak = tieBreak;
+        this.rows = new int[k];
+        this.gpas = new double[k];
+    }
+
+    void offer(int row, double gpa) {
+        if (n < k) {
+            rows[n] = row;
+            gpas[n] = gpa;
+            siftUp(n++);
+            return;
+        }
+        double min = gpas[0];
+        if (gpa < min || (gpa == min && tieBreak.applyAsInt(row, rows[0]) > 0)) {
+            // ranks below the root: only a tie, and then below every kept row
+            if (gpa == min && withTies) addTie(row);
+            return;
+        }
+        int evicted = rows[0];
+        rows[0] = row;
+        gpas[0] = gpa;
+        siftDown(rows, gpas, 0, n);
+        if (!withTies) return;
+        if (gpas[0] == min) addTie(evicted);
+        else tieCount = 0; // the cut moved above the old ties
+    }
+
+    /** Selected rows, best first (GPA descending, then tieBreak); ties come last. */
+    int[] result() {
+        int[] out = new int[n + tieCount];
+        int[] r = Arrays.copyOf(rows, n);
+        double[] g = Arrays.copyOf(gpas, n);
+        // pop worst-first into the back of the array
+        for (int size = n; size > 0; size--) {
+            out[size - 1] = r[0];
+            swap(r, g, 0, size - 1);
+            siftDown(r, g, 0, size - 1);
+        }
+        // every tie ranks below every kept row, so they only need ordering among themselves
+        int[] t = IntStream.of(Arrays.copyOf(ties, tieCount)).boxed()
+                .sorted(tieBreak::applyAsInt).mapToInt(Integer::intValue).toArray();
+        System.arraycopy(t, 0, out, n, tieCount);
+        return out;
+    }
+
+    private void addTie(int row) {
+        if (tieCount == ties.length) ties = Arrays.copyOf(ties, Math.max(8, tieCount * 2));
+        ties[tieCount++] = row;
+    }
+
+    /* =========================
+       HEAP
+       ========================= */
+
+    // a is worse than b: lower GPA, or same GPA and later by tieBreak
+    private boolean worse(int[] r, double[] g, int a, int b) {
+        return g[a] < g[b] || (g[a] == g[b] && tieBreak.applyAsInt(r[a], r[b]) > 0);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(rows, gpas, i, parent)) return;
+            swap(rows, gpas, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] r, double[] g, int i, int size) {
+        while (true) {
+            int l = 2 * i + 1;
+            if (l >= size) return;
+            int c = (l + 1 < size && worse(r, g, l + 1, l)) ? l + 1 : l;
+            if (!worse(r, g, c, i)) return;
+            swap(r, g, i, c);
+            i = c;
+        }
+    }
+
+    private static void swap(int[] r, double[] g, int a, int b) {
+        int tr = r[a];
+        r[a] = r[b];
+        r[b] = tr;
+        double tg = g[a];
+        g[a] = g[b];
+        g[b] = tg;
+    }
+}
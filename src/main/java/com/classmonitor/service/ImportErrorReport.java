@@ -0,0 +1,158 @@
+package com.classmonitor.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects import errors without holding them all in memory.
+ *
+ * Every error is streamed to {@code <dir>/import_errors_<timestamp>.csv} (created on the first
+ * error). Only the first {@code keep} are kept as text for the UI, plus a count per error type.
+ * Used by the pipeline's writer thread only.
+ */
+final class ImportErrorReport implements Closeable {
+
+    static final int DEFAULT_KEEP = 200;
+
+    // error types past this many are counted together
+    private static final int MAX_TYPES = 50;
+    private static final String OTHER = "Other";
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+
+    private final Path dir;
+    private final int keep;
+
+    private final StringBuilder shown = new StringBuilder();
+    private int shownCount;
+    private long total;
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    private Path file;
+    private BufferedWriter out;
+    private String fileError;
+
+    ImportErrorReport(Path dir, int keep) {
+        this.dir = dir;
+        this.keep = keep;
+    }
+
+    /** A row that failed validation; each violation message is counted as its own type. */
+    void rowError(long line, String[] violations, String data) {
+        String message = String.join(" ", violations);
+        for (int i = 1; i < violations.length; i++) countType(violations[i], 1);
+        add(violations[0], 1, "Row " + line + ": " + message + " | Data: " + data,
+                String.valueOf(line), message, data);
+    }
+
+    /** A batch the database rejected; every row in it counts as failed. */
+    void batchError(long firstLine, long lastLine, int rows, String message) {
+        add("Batch write failed", rows, "Rows " + firstLine + "-" + lastLine + ": batch write failed: " + message,
+                firstLine + "-" + lastLine, "Batch write failed: " + message, "");
+    }
+
+    /** The file could not be read past this point. */
+    void readError(String message) {
+        add("Failed to read CSV", 1, "Failed to read CSV: " + message, "", "Failed to read CSV: " + message, "");
+    }
+
+    /** Errors recorded, counting each row of a failed batch. */
+    long total() {
+        return total;
+    }
+
+    /** Error type to number of rows, in order of first appearance (a row can count under several). */
+    Map<String, Long> counts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    /** Full report on disk, or null if there were no errors (or it could not be written). */
+    Path file() {
+        return fileError == null ? file : null;
+    }
+
+    /** The kept errors, a note about the rest, and the per-type counts. Empty if no errors. */
+    String summary() {
+        if (total == 0) return "";
+        StringBuilder sb = new StringBuilder(shown);
+        long hidden = total - shownCount;
+        if (hidden > 0) sb.append("... ").append(hidden).append(" more errors not shown.\n");
+        if (file() != null) sb.append("Full error report: ").append(file.toAbsolutePath()).append("\n");
+        if (fileError != null) sb.append("Could not write error report: ").append(fileError).append("\n");
+
+        sb.append("Errors by type:\n");
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            sb.append("  ").append(e.getValue()).append(" x ").append(e.getKey()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        finish();
+    }
+
+    /** Closes the report file, so {@link #file()} and {@link #summary()} are final. Safe to repeat. */
+    void finish() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            fileError = e.getMessage();
+        }
+        out = null;
+    }
+
+    private void add(String type, int rows, String text, String where, String error, String data) {
+        total += rows;
+        countType(type, rows);
+
+        if (shownCount < keep) {
+            shown.append(text).append("\n");
+            shownCount += rows;
+        }
+        write(where, error, data);
+    }
+
+    private void countType(String type, int rows) {
+        String key = counts.containsKey(type) || counts.size() < MAX_TYPES ? type : OTHER;
+        counts.merge(key, (long) rows, Long::sum);
+    }
+
+    private void write(String where, String error, String data) {
+        if (fileError != null) return;
+        try {
+            if (out == null) {
+                Files.createDirectories(dir);
+                file = dir.resolve("import_errors_" + LocalDateTime.now().format(STAMP) + ".csv");
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                out.write("line,error,data\n");
+            }
+            out.write(cell(where));
+            out.write(',');
+            out.write(cell(error));
+            out.write(',');
+            out.write(cell(data));
+            out.write('\n');
+        } catch (IOException e) {
+            // keep importing; the summary says the report is missing
+            fileError = e.getMessage();
+            close();
+        }
+    }
+
+    private static String cell(String v) {
+        if (v == null) return "";
+        boolean quote = v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0;
+        return quote ? "\"" + v.replace("\"", "\"\"") + "\"" : v;
+    }
+}
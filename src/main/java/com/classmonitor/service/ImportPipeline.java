@@ -0,0 +1,583 @@
+package com.classmonitor.service;
+
+import com.classmonitor.ValidationException;
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.ImportJobRepository;
+import com.classmonitor.repository.StudentRepository;
+import com.classmonitor.repository.UpsertCounts;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Staged CSV import:
+ *
+ *   reader (calling thread) -> [bounded queue] -> N validators -> [bounded queue] -> 1 writer
+ *
+ * Streaming input: the reader tokenizes records and copies out the mapped columns in chunks.
+ * Memory-mapped input: the reader only cuts the file into byte slices of whole records and
+ * the validators decode and tokenize them too, so parsing runs on all workers.
+ *
+ * Validators turn rows into Students. The single writer puts chunks back in file order and
+ * upserts them in batches on one connection, so a later duplicate of an ID still wins. Rows
+ * whose stored content hash is unchanged are skipped rather than rewritten. Full queues block
+ * the stage in front of them, which bounds memory to a few chunks per worker whatever the file
+ * size. One pipeline runs one import.
+ *
+ * Progress is reported from its own thread every {@link #PROGRESS_INTERVAL_MS}; that thread
+ * is stopped before the final event is sent, so no tick can follow it. Cancelling stops the
+ * writer at the next batch boundary: committed batches stay, the batch being filled is
+ * dropped, so the database never holds half a batch.
+ *
+ * With a job ({@link #withCheckpoints}) every batch is committed together with a checkpoint:
+ * the last line written and a record boundary to restart from. Only mapped input knows byte
+ * offsets (slice boundaries); streamed input checkpoints lines only. Resuming from a job skips
+ * records up to its last committed line and continues its counts.
+ *
+ * Row errors go to an {@link ImportErrorReport} filled by the writer: the full list is streamed
+ * to a file in {@code errorDir} and only the first few stay in the result message.
+ */
+final class ImportPipeline {
+
+    /** Turns the mapped column values of one record into a Student, or throws (ideally a ValidationException). */
+    @FunctionalInterface
+    interface RowMapper {
+        Student toStudent(String[] values);
+    }
+
+    /** Reader stage: fills {@code out} and returns its busy time in nanos. */
+    @FunctionalInterface
+    private interface Producer {
+        long produce(BlockingQueue<Chunk> out) throws IOException, InterruptedException;
+    }
+
+    static final int CHUNK_ROWS = 512;
+
+    static final long PROGRESS_INTERVAL_MS = 250;
+
+    private static final int QUEUE_CHUNKS_PER_WORKER = 2;
+    private static final long POLL_MS = 100;
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final StudentRepository repo;
+    private final int batchSize;
+    private final int workers;
+    private final RowMapper mapper;
+    private final Consumer<ImportProgress> progress;
+    private final CancellationToken cancel;
+    private final Path errorDir;
+
+    // optional checkpointing; job is the row being updated (and, when resuming, where to start)
+    private ImportJobRepository jobs;
+    private ImportJob job;
+
+    // set when a stage dies or the import is cancelled, so the others stop waiting on their queues
+    private volatile boolean aborted;
+
+    // first validator failure outside a single row (an Error, a slice that blew up); fails the import
+    private volatile Throwable validatorFailure;
+
+    // chunks the reader handed on; written by the reader before it sends END
+    private volatile int chunksRead;
+
+    private final AtomicLong validateNanos = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private volatile long rowsCommitted;
+
+    // record layout and input size, set by run() before any worker starts
+    private int[] columns;
+    private char delimiter;
+    private LongSupplier bytesRead;
+    private long totalBytes;
+
+    /**
+     * @param progress called about every {@link #PROGRESS_INTERVAL_MS} from a pipeline thread, may be null
+     * @param cancel   checked between chunks and at batch boundaries
+     * @param errorDir where the full error report is written if any row fails
+     */
+    ImportPipeline(StudentRepository repo, int batchSize, int workers, RowMapper mapper,
+                   Consumer<ImportProgress> progress, CancellationToken cancel, Path errorDir) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be at least 1");
+        this.repo = repo;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.mapper = mapper;
+        this.progress = progress;
+        this.cancel = cancel;
+        this.errorDir = errorDir;
+    }
+
+    /** Commit a checkpoint for {@code job} with every batch, starting from its current state. */
+    ImportPipeline withCheckpoints(ImportJobRepository jobs, ImportJob job) {
+        this.jobs = jobs;
+        this.job = job;
+        return this;
+    }
+
+    /**
+     * Imports every record left in {@code csv} (the header has been read).
+     * @param columns   record field index for each mapped value, -1 if the column is absent
+     * @param bytesRead bytes consumed from the file so far, for progress
+     */
+    ImportResult run(CsvReader csv, int[] columns, LongSupplier bytesRead, long totalBytes) {
+        this.columns = columns;
+        this.delimiter = csv.delimiter();
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        return run(out -> read(csv, out));
+    }
+
+    /** Imports every record left in {@code file} (the header slice has been taken). */
+    ImportResult run(MappedCsvFile file, char delimiter, int[] columns) {
+        this.columns = columns;
+        this.delimiter = delimiter;
+        this.bytesRead = file::position;
+        file.delimiter(delimiter);
+        this.totalBytes = file.size();
+        return run(out -> split(file, out));
+    }
+
+    private ImportResult run(Producer reader) {
+        long start = System.nanoTime();
+
+        int capacity = workers * QUEUE_CHUNKS_PER_WORKER;
+        BlockingQueue<Chunk> toValidate = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Chunk> toWrite = new ArrayBlockingQueue<>(capacity);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "csv-import-" + THREAD_IDS.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Thread ticker = null;
+
+        // closed on every path, so a failed import does not leave the report open and half flushed
+        try (ImportErrorReport errors = new ImportErrorReport(errorDir, ImportErrorReport.DEFAULT_KEEP)) {
+            Future<Writer> writer = pool.submit(() -> {
+                try {
+                    return new Writer(errors).run(toWrite);
+                } catch (Throwable t) {
+                    aborted = true;
+                    throw t;
+                }
+            });
+            for (int i = 0; i < workers; i++) {
+                pool.submit(() -> validate(toValidate, toWrite));
+            }
+            if (progress != null) {
+                ticker = new Thread(() -> reportProgress(start), "csv-import-progress-" + THREAD_IDS.incrementAndGet());
+                ticker.setDaemon(true);
+                ticker.start();
+            }
+
+            long readNanos = 0;
+            String readError = null;
+            try {
+                readNanos = reader.produce(toValidate);
+            } catch (IOException e) {
+                readError = e.getMessage();
+            } finally {
+                for (int i = 0; i < workers; i++) put(toValidate, Chunk.END);
+            }
+
+            Writer w = writer.get();
+            boolean cancelled = cancel.isCancelled();
+            if (readError != null && !cancelled) {
+                errors.readError(readError);
+                w.failed++;
+            }
+            errors.finish();
+
+            if (job != null) {
+                String status = cancelled ? ImportJob.CANCELLED
+                        : readError != null ? ImportJob.FAILED : ImportJob.COMPLETED;
+                jobs.finish(job.id(), status, w.success, w.failed);
+            }
+
+            StringBuilder log = new StringBuilder();
+            if (cancelled) {
+                log.append("Import cancelled: rows after line ").append(w.lastWrittenLine)
+                        .append(" were not imported.\n");
+            }
+            log.append(errors.summary());
+            if (log.isEmpty()) log.append("Import completed successfully.");
+
+            if (progress != null) {
+                // no tick may land after the final event
+                ticker.interrupt();
+                ticker.join();
+                progress.accept(snapshot(start));
+            }
+
+            ImportResult.Timings timings = new ImportResult.Timings(
+                    millis(readNanos), millis(validateNanos.get()), millis(w.writeNanos),
+                    millis(System.nanoTime() - start), workers);
+            return new ImportResult(w.success, w.failed, log.toString(), timings, w.changes, cancelled,
+                    errors.file(), errors.counts());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted = true;
+            throw new RuntimeException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Import failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            aborted = true;
+            if (ticker != null) ticker.interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /* =========================
+       STAGES
+       ========================= */
+
+    /** Streaming reader: tokenizes and copies out the mapped columns. */
+    private long read(CsvReader csv, BlockingQueue<Chunk> out) throws IOException, InterruptedException {
+        long busy = 0;
+        int seq = 0;
+        Chunk chunk = new Chunk(seq++);
+        long t = System.nanoTime();
+
+        while (csv.next()) {
+            addRow(csv, chunk);
+            if (chunk.size == CHUNK_ROWS) {
+                busy += System.nanoTime() - t;
+                if (!put(out, chunk)) return busy;
+                chunksRead = seq;
+                chunk = new Chunk(seq++);
+                t = System.nanoTime();
+            }
+        }
+        busy += System.nanoTime() - t;
+        if (chunk.size > 0 && put(out, chunk)) chunksRead = seq;
+        return busy;
+    }
+
+    /** Mapped reader: cuts the file into slices of whole records; parsing is left to the workers. */
+    private long split(MappedCsvFile file, BlockingQueue<Chunk> out) throws IOException, InterruptedException {
+        long busy = 0;
+        int seq = 0;
+        while (true) {
+            long t = System.nanoTime();
+            long start = file.position();
+            MappedCsvFile.Slice slice = file.nextChunk();
+            busy += System.nanoTime() - t;
+            if (slice == null) return busy;
+
+            Chunk chunk = new Chunk(seq++);
+            chunk.slice = slice;
+            chunk.startOffset = start;
+            chunk.startLine = slice.firstLine();
+            chunk.endOffset = file.position();
+            chunk.endLine = file.line();
+            if (!put(out, chunk)) return busy;
+            chunksRead = seq;
+        }
+    }
+
+    /** Copies the mapped columns of the current record into the chunk (blank and already imported lines skipped). */
+    private void addRow(CsvReader csv, Chunk chunk) {
+        if (csv.fieldCount() == 1 && csv.isBlank(0)) return;
+        if (job != null && csv.recordLine() <= job.lastLine()) return;
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) values[i] = csv.string(columns[i]);
+        chunk.add(csv.recordLine(), values);
+    }
+
+    /** Decodes (UTF-8, malformed bytes replaced) and tokenizes a mapped slice. */
+    private void parseSlice(Chunk chunk) {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(chunk.slice.bytes());
+        try {
+            CsvReader csv = new CsvReader(new CharArrayReader(chars.array(),
+                    chars.arrayOffset() + chars.position(), chars.remaining()),
+                    delimiter, chunk.slice.firstLine());
+            while (csv.next()) addRow(csv, chunk);
+        } catch (IOException e) {
+            // only an unclosed quote at the very end of the file gets here
+            chunk.readError = e.getMessage();
+        }
+        chunk.slice = null;
+    }
+
+    /** Validator: maps rows to Students; a failed row keeps its values for the error report. */
+    private void validate(BlockingQueue<Chunk> in, BlockingQueue<Chunk> out) {
+        try {
+            Chunk chunk;
+            while ((chunk = take(in)) != null && chunk != Chunk.END) {
+                long t = System.nanoTime();
+                if (chunk.slice != null) parseSlice(chunk);
+                for (int i = 0; i < chunk.size; i++) {
+                    try {
+                        chunk.students[i] = mapper.toStudent(chunk.values[i]);
+                        chunk.values[i] = null; // no longer needed
+                    } catch (ValidationException ex) {
+                        chunk.errors[i] = ex.violations().toArray(new String[0]);
+                    } catch (Exception ex) {
+                        chunk.errors[i] = new String[]{ex.getMessage()};
+                    }
+                }
+                validateNanos.addAndGet(System.nanoTime() - t);
+                rowsParsed.addAndGet(chunk.size);
+                if (!put(out, chunk)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            // the chunk in hand never reaches the writer: stop everything rather than lose it
+            validatorFailure = t;
+            aborted = true;
+        } finally {
+            try {
+                put(out, Chunk.END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Writer: restores file order and upserts in batches of batchSize. */
+    private final class Writer {
+        final ImportErrorReport errors;
+        int success;
+        int failed;
+        UpsertCounts changes = UpsertCounts.NONE;
+        long writeNanos;
+        long lastWrittenLine = 1;   // last line of the last batch sent to the database (1 = header)
+
+        private final List<Student> batch = new ArrayList<>(batchSize);
+        private long batchFirstRow;
+        private long batchLastRow;
+        private Chunk batchLastChunk;
+        private int batchLastIndex;
+
+        // last checkpoint's restart point
+        private long safeOffset;
+        private long safeLine = 1;
+
+        Writer(ImportErrorReport errors) {
+            this.errors = errors;
+            if (job != null) {
+                success = job.successCount();
+                failed = job.failureCount();
+                changes = job.changes();
+                lastWrittenLine = job.lastLine();
+                safeOffset = job.byteOffset();
+                safeLine = job.offsetLine();
+                rowsCommitted = success;
+            }
+        }
+
+        Writer run(BlockingQueue<Chunk> in) throws InterruptedException {
+            Map<Integer, Chunk> early = new HashMap<>();
+            int nextSeq = 0;
+            int ends = 0;
+
+            while (ends < workers) {
+                Chunk chunk = take(in);
+                if (chunk == null) break;
+                if (chunk == Chunk.END) {
+                    ends++;
+                    continue;
+                }
+                early.put(chunk.seq, chunk);
+                while ((chunk = early.remove(nextSeq)) != null) {
+                    if (!consume(chunk)) return this;
+                    nextSeq++;
+                }
+            }
+            Throwable failure = validatorFailure;
+            if (failure != null) {
+                throw new IllegalStateException("validator failed: " + failure, failure);
+            }
+            // every chunk read must have been written, unless the import was cancelled
+            if (!cancel.isCancelled() && (!early.isEmpty() || nextSeq < chunksRead)) {
+                throw new IllegalStateException((chunksRead - nextSeq) + " chunks were not written");
+            }
+            if (!batch.isEmpty() && !stopIfCancelled()) flush();
+            return this;
+        }
+
+        /** Returns false once the import has been cancelled. */
+        private boolean consume(Chunk chunk) {
+            for (int i = 0; i < chunk.size; i++) {
+                Student s = chunk.students[i];
+                if (s == null) {
+                    errors.rowError(chunk.lines[i], chunk.errors[i], String.join(",", chunk.values[i]));
+                    failed++;
+                    continue;
+                }
+                if (batch.isEmpty()) batchFirstRow = chunk.lines[i];
+                batchLastRow = chunk.lines[i];
+                batchLastChunk = chunk;
+                batchLastIndex = i;
+                batch.add(s);
+                if (batch.size() >= batchSize) {
+                    if (stopIfCancelled()) return false;
+                    flush();
+                }
+            }
+            if (chunk.readError != null) {
+                errors.readError(chunk.readError);
+                failed++;
+            }
+            return true;
+        }
+
+        /** At a batch boundary: on cancel, drop the unwritten batch and stop the other stages. */
+        private boolean stopIfCancelled() {
+            if (!cancel.isCancelled()) return false;
+            batch.clear();
+            aborted = true;
+            return true;
+        }
+
+        /** Writes one batch as a single upsert transaction; a failed batch counts as failed rows. */
+        private void flush() {
+            long t = System.nanoTime();
+            UpsertCounts counts;
+            try {
+                if (job == null) {
+                    counts = repo.upsertChanged(batch);
+                } else {
+                    // listeners hear about the rows once batch and checkpoint have committed
+                    counts = repo.deferNotifications(
+                            () -> jobs.commitBatch(job.id(), () -> repo.upsertChanged(batch), this::checkpoint));
+                    ImportJob.Checkpoint saved = checkpoint(counts);
+                    safeOffset = saved.byteOffset();
+                    safeLine = saved.offsetLine();
+                }
+            } catch (Exception ex) {
+                errors.batchError(batchFirstRow, batchLastRow, batch.size(), ex.getMessage());
+                counts = UpsertCounts.NONE;
+            }
+            writeNanos += System.nanoTime() - t;
+            changes = changes.plus(counts);
+            success += counts.total();
+            failed += batch.size() - counts.total();
+            lastWrittenLine = batchLastRow;
+            rowsCommitted = success;
+            batch.clear();
+        }
+
+        /**
+         * State after the pending batch. The restart point is the end of the batch's last chunk
+         * if the batch took that chunk's last row, else the chunk's start (the resume skips the
+         * committed lines in it). Without byte offsets it stays where it was.
+         */
+        private ImportJob.Checkpoint checkpoint(UpsertCounts batchCounts) {
+            long offset = safeOffset, line = safeLine;
+            Chunk c = batchLastChunk;
+            if (c.endOffset > 0) {
+                boolean lastRow = batchLastIndex == c.size - 1;
+                offset = lastRow ? c.endOffset : c.startOffset;
+                line = lastRow ? c.endLine : c.startLine;
+            }
+            return new ImportJob.Checkpoint(offset, line, batchLastRow, success + batchCounts.total(), failed,
+                    changes.plus(batchCounts));
+        }
+    }
+
+    /* =========================
+       QUEUES
+       ========================= */
+
+    /** Blocks until there is room; returns false if the pipeline was aborted or cancelled meanwhile. */
+    private boolean put(BlockingQueue<Chunk> q, Chunk chunk) throws InterruptedException {
+        while (!aborted && !cancel.isCancelled()) {
+            if (q.offer(chunk, POLL_MS, TimeUnit.MILLISECONDS)) return true;
+        }
+        return false;
+    }
+
+    /** Blocks until a chunk arrives; returns null if the pipeline was aborted or cancelled meanwhile. */
+    private Chunk take(BlockingQueue<Chunk> q) throws InterruptedException {
+        while (!aborted && !cancel.isCancelled()) {
+            Chunk c = q.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            if (c != null) return c;
+        }
+        return null;
+    }
+
+    /* =========================
+       PROGRESS
+       ========================= */
+
+    /** Ticks until interrupted; run() interrupts and joins it before the final event. */
+    private void reportProgress(long start) {
+        try {
+            while (!aborted && !Thread.currentThread().isInterrupted()) {
+                Thread.sleep(PROGRESS_INTERVAL_MS);
+                progress.accept(snapshot(start));
+            }
+        } catch (InterruptedException ignored) {
+            // import finished
+        }
+    }
+
+    private ImportProgress snapshot(long start) {
+        long elapsed = millis(System.nanoTime() - start);
+        long bytes = Math.min(bytesRead.getAsLong(), totalBytes);
+        long committed = rowsCommitted;
+        double rate = elapsed == 0 ? 0 : committed * 1000.0 / elapsed;
+        long eta = bytes <= 0 ? -1 : (long) (elapsed * (double) (totalBytes - bytes) / bytes);
+        return new ImportProgress(bytes, totalBytes, rowsParsed.get(), committed, rate, elapsed, eta);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /** A run of records (or a mapped slice not parsed yet); handed from stage to stage, never shared. */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1);
+
+        final int seq;
+        MappedCsvFile.Slice slice;
+        long startOffset, startLine, endOffset, endLine;   // byte range of a mapped slice, 0 if unknown
+        long[] lines = new long[CHUNK_ROWS];
+        String[][] values = new String[CHUNK_ROWS][];
+        Student[] students = new Student[CHUNK_ROWS];
+        String[][] errors = new String[CHUNK_ROWS][];   // violations per failed row
+        String readError;                               // a mapped slice that could not be parsed
+        int size;
+
+        Chunk(int seq) {
+            this.seq = seq;
+        }
+
+        void add(long line, String[] row) {
+            if (size == lines.length) {
+                int cap = size * 2;
+                lines = Arrays.copyOf(lines, cap);
+                values = Arrays.copyOf(values, cap);
+                students = Arrays.copyOf(students, cap);
+                errors = Arrays.copyOf(errors, cap);
+            }
+            lines[size] = line;
+            values[size] = row;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.classmonitor.service;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of a running import.
+ * @param rowsParsed     records tokenized and validated so far (valid or not)
+ * @param rowsCommitted  rows written in committed batches
+ * @param etaMillis      estimated time left from the share of bytes read, -1 if unknown
+ */
+public record ImportProgress(long bytesRead, long totalBytes, long rowsParsed, long rowsCommitted,
+                             double rowsPerSecond, long elapsedMillis, long etaMillis) {
+
+    /** 0..1 by bytes read, or -1 (indeterminate) when the size is unknown. */
+    public double fraction() {
+        return totalBytes <= 0 ? -1 : Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+
+    public String summary() {
+        String s = String.format(Locale.US, "%,d rows committed, %,d parsed - %,.0f rows/s - %.1f of %.1f MB",
+                rowsCommitted, rowsParsed, rowsPerSecond, bytesRead / 1048576.0, totalBytes / 1048576.0);
+        if (etaMillis >= 0) s += " - ETA " + formatMillis(etaMillis);
+        return s;
+    }
+
+    private static String formatMillis(long ms) {
+        long secs = (ms + 999) / 1000;
+        return String.format(Locale.US, "%d:%02d", secs / 60, secs % 60);
+    }
+}
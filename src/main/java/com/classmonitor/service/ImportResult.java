@@ -1,15 +1,49 @@
 package com.classmonitor.service;
 
+import com.classmonitor.repository.UpsertCounts;
+
+import java.nio.file.Path;
+import java.util.Map;
+
 public class ImportResult {
 
+    /**
+     * Busy time per pipeline stage (time spent blocked on a queue is not counted).
+     * Validation time is summed over all workers, so it can exceed the total.
+     */
+    public record Timings(long readMillis, long validateMillis, long writeMillis, long totalMillis, int workers) {
+
+        public static final Timings NONE = new Timings(0, 0, 0, 0, 0);
+
+        public String summary() {
+            return "total " + totalMillis + " ms (read " + readMillis + " ms, validate " + validateMillis
+                    + " ms on " + workers + " workers, write " + writeMillis + " ms)";
+        }
+    }
+
     private final int successCount;
     private final int failureCount;
     private final String message;
+    private final Timings timings;
+    private final UpsertCounts changes;
+    private final boolean cancelled;
+    private final Path errorReport;
+    private final Map<String, Long> errorCounts;
 
     public ImportResult(int successCount, int failureCount, String message) {
+        this(successCount, failureCount, message, Timings.NONE, UpsertCounts.NONE, false, null, Map.of());
+    }
+
+    public ImportResult(int successCount, int failureCount, String message, Timings timings, UpsertCounts changes,
+                        boolean cancelled, Path errorReport, Map<String, Long> errorCounts) {
         this.successCount = successCount;
         this.failureCount = failureCount;
         this.message = message;
+        this.timings = timings;
+        this.changes = changes;
+        this.cancelled = cancelled;
+        this.errorReport = errorReport;
+        this.errorCounts = errorCounts;
     }
 
     public int getSuccessCount() {
@@ -24,6 +58,42 @@ public class ImportResult {
         return message;
     }
 
+    public Timings getTimings() {
+        return timings;
+    }
+
+    /** How the imported rows compared with the stored ones; unchanged rows were not written. */
+    public UpsertCounts getChanges() {
+        return changes;
+    }
+
+    public int getInsertedCount() {
+        return changes.inserted();
+    }
+
+    public int getUpdatedCount() {
+        return changes.updated();
+    }
+
+    public int getUnchangedCount() {
+        return changes.unchanged();
+    }
+
+    /** True if the import was stopped early; everything committed before that is kept. */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** CSV with every failed row (line, error, data), or null if nothing failed. */
+    public Path getErrorReport() {
+        return errorReport;
+    }
+
+    /** Failed rows per violation message, in order of first appearance; a row can count under several. */
+    public Map<String, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
     @Override
     public String toString() {
         return message + " (Success: " + successCount +
@@ -0,0 +1,206 @@
+package com.classmonitor.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a memory-mapped CSV file into byte ranges of whole records.
+ *
+ * The file is mapped in windows of up to {@link #WINDOW_BYTES}, so it can be larger than 2 GB
+ * and none of it is copied onto the heap here. Splitting is a single byte scan that follows
+ * {@link CsvReader}'s quoting rules: a quote only opens a quoted field when nothing but
+ * spaces precede it in the field, {@code ""} inside quotes is an escaped quote, and a line
+ * break outside quotes ends a record. So a stray quote such as {@code O"Brien} is plain text
+ * to both, and slices always end where the reader's records do. The slices can then be
+ * decoded and parsed in parallel. Scanning bytes is safe for UTF-8 because quotes, delimiters
+ * and line breaks never occur inside a multi-byte sequence.
+ *
+ * Field starts depend on the delimiter: set it with {@link #delimiter(char)} once the header
+ * is known; until then both ',' and ';' separate fields. A leading UTF-8 BOM is skipped.
+ * The mapping stays valid (and, on Windows, the file locked) until the slices are garbage
+ * collected.
+ */
+public final class MappedCsvFile implements Closeable {
+
+    /** A run of whole records and the physical line its first record starts on. */
+    public record Slice(ByteBuffer bytes, long firstLine) {}
+
+    static final long WINDOW_BYTES = 256L << 20;
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkBytes;
+    private final long windowBytes;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private volatile long pos;  // file offset of the next record (read by progress reporting)
+    private long line = 1;  // physical line of the next record
+
+    private char delimiter; // 0 until known: ',' and ';' both end a field
+
+    public MappedCsvFile(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_BYTES);
+    }
+
+    /** @param chunkBytes target slice size; slices end at the first record boundary past it */
+    public MappedCsvFile(Path file, int chunkBytes) throws IOException {
+        this(file, chunkBytes, WINDOW_BYTES);
+    }
+
+    MappedCsvFile(Path file, int chunkBytes, long windowBytes) throws IOException {
+        if (chunkBytes < 1) throw new IllegalArgumentException("chunkBytes must be at least 1");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.chunkBytes = chunkBytes;
+        this.windowBytes = Math.min(windowBytes, Integer.MAX_VALUE);
+
+        if (size >= 3) {
+            map(0);
+            if ((window.get(0) & 0xFF) == 0xEF && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Bytes handed out so far (including a skipped BOM). */
+    public long position() {
+        return pos;
+    }
+
+    /** The field delimiter of the records after the header. */
+    public void delimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /** Physical line the next record starts on. */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Continues from a record boundary found earlier (a resume checkpoint).
+     * @param offset file offset where a record starts
+     * @param line   physical line that record starts on
+     */
+    public void seek(long offset, long line) {
+        if (offset < 0 || offset > size) throw new IllegalArgumentException("offset " + offset + " outside file");
+        this.pos = offset;
+        this.line = line;
+    }
+
+    /** Exactly one record (e.g. the header), or null at end of file. */
+    public Slice nextRecord() throws IOException {
+        return next(1);
+    }
+
+    /** About {@code chunkBytes} of whole records, or null at end of file. */
+    public Slice nextChunk() throws IOException {
+        return next(chunkBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /* =========================
+       SPLITTING
+       ========================= */
+
+    private Slice next(int target) throws IOException {
+        if (pos >= size) return null;
+        if (window == null || pos < windowStart || pos >= windowStart + window.limit()) map(pos);
+
+        while (true) {
+            int from = (int) (pos - windowStart);
+            int limit = window.limit();
+            boolean windowAtEof = windowStart + limit == size;
+            int want = (int) Math.min((long) from + target, limit);
+
+            boolean inQuotes = false;
+            boolean fieldBlank = true; // only spaces so far in this field: a quote here opens it
+            int lines = 0;
+            int end = -1;          // last record boundary seen
+            int linesAtEnd = 0;
+
+            for (int i = from; i < limit; i++) {
+                byte b = window.get(i);
+                if (inQuotes) {
+                    if (b == '"') {
+                        if (i + 1 == limit && !windowAtEof) break; // escape or close? decide in the next window
+                        if (i + 1 < limit && window.get(i + 1) == '"') {
+                            i++; // escaped quote
+                            fieldBlank = false;
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        if (b == '\n') lines++;
+                        if ((b & 0xFF) > ' ') fieldBlank = false;
+                    }
+                } else if (b == '\n') {
+                    lines++;
+                    fieldBlank = true;
+                    end = i + 1;
+                    linesAtEnd = lines;
+                    if (end >= want) break;
+                } else if (b == '\r') {
+                    fieldBlank = true;
+                    // CRLF ends at the '\n'; a lone CR is a line break of its own
+                    boolean crlf = i + 1 < limit ? window.get(i + 1) == '\n' : !windowAtEof;
+                    if (!crlf) {
+                        lines++;
+                        end = i + 1;
+                        linesAtEnd = lines;
+                        if (end >= want) break;
+                    }
+                } else if (delimiter == 0 ? b == ',' || b == ';' : b == delimiter) {
+                    fieldBlank = true;
+                } else if (b == '"' && fieldBlank) {
+                    inQuotes = true;
+                } else if ((b & 0xFF) > ' ') {
+                    fieldBlank = false;
+                }
+            }
+
+            if (end < want && windowAtEof) {
+                // last record has no line break after it
+                end = limit;
+                linesAtEnd = lines;
+            }
+
+            if (end > from) {
+                Slice slice = new Slice(window.slice(from, end - from), line);
+                pos += end - from;
+                line += linesAtEnd;
+                return slice;
+            }
+
+            // no complete record left in this window
+            if (windowStart == pos) {
+                throw new IOException("Record starting on line " + line + " is larger than "
+                        + (windowBytes >> 20) + " MB (unbalanced quotes?)");
+            }
+            map(pos);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        long len = Math.min(windowBytes, size - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+        windowStart = start;
+    }
+}
@@ -1,63 +1,207 @@
 package com.classmonitor.service;
 
 import com.classmonitor.domain.Student;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.GpaSummary;
+import com.classmonitor.repository.StatsRepository;
+import com.classmonitor.repository.StudentRepository;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-public class ReportService {
+/**
+ * The reports behind the Reports screen, over the student repository, the maintained
+ * aggregates of the {@link StatsRepository} and the {@link StudentSnapshot}.
+ *
+ * Results are cached by report and parameters (programme, level, threshold) together with the
+ * data generation they were computed at. The generation is bumped on every write reported by
+ * the {@link CachingStudentRepository}, so an unchanged report is served from the cache and a
+ * write makes every report recompute on its next use. Register this as a listener after the
+ * snapshot it reads, so the snapshot is patched before the generation moves.
+ *
+ * Returned values are shared between callers, so they are read-only all the way down: lists
+ * and maps are unmodifiable and {@link #gpaStats()} holds read-only {@link GpaStats}. Thread-safe.
+ */
+public final class ReportService implements CachingStudentRepository.Listener {
 
-    // TEMP in-memory data (replace with repository later)
-    private final List<Student> students = new ArrayList<>();
+    public static final int DEFAULT_TOP_N = 10;
 
-    public ReportService() {
-        // safe seed data so UI works
-        students.add(new Student("UMAT001", "Alice Mensah", "Computer Science", 200, 3.5,
-                "a@a.com", "0200000000", "2024-01-01", "Active"));
-        students.add(new Student("UMAT002", "Yaw Boateng", "Electrical Eng", 300, 2.1,
-                "b@b.com", "0200000001", "2024-01-01", "Active"));
+    // distinct parameter sets kept before the cache starts over
+    private static final int MAX_CACHED = 256;
+
+    private enum Report {
+        PROGRAMMES, TOP_PERFORMERS, TOP_PER_PROGRAMME, TOP_PER_LEVEL, AT_RISK, AT_RISK_BY_PROGRAMME,
+        PROGRAMME_SUMMARY, GPA_DISTRIBUTION, GPA_STATS, ACTIVE, INACTIVE, STUDENT_COUNT
+    }
+
+    // unused parameters are null
+    private record Key(Report report, String programme, Integer level, Double threshold) {
+        static Key of(Report report) {
+            return new Key(report, null, null, null);
+        }
+    }
+
+    private record Cached(long generation, Object value) {}
+
+    private final StudentRepository repo;
+    private final StatsRepository stats;
+    private final StudentSnapshot snapshot;
+    private final int topN;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Key, Cached> cache = new ConcurrentHashMap<>();
+
+    private long hits;
+    private long misses;
+
+    public ReportService(StudentRepository repo, StatsRepository stats, StudentSnapshot snapshot) {
+        this(repo, stats, snapshot, DEFAULT_TOP_N);
     }
 
-    // ✅ THIS IS THE MISSING METHOD
+    /** @param topN how many students the top-performer lists hold */
+    public ReportService(StudentRepository repo, StatsRepository stats, StudentSnapshot snapshot, int topN) {
+        if (topN < 1) throw new IllegalArgumentException("topN must be at least 1");
+        this.repo = repo;
+        this.stats = stats;
+        this.snapshot = snapshot;
+        this.topN = topN;
+    }
+
+    /* =========================
+       REPORTS
+       ========================= */
+
     public List<String> getProgrammes() {
-        return students.stream()
-                .map(Student::programme)
-                .distinct()
-                .sorted()
-                .toList();
+        return cached(Key.of(Report.PROGRAMMES), () -> List.copyOf(snapshot.programmes()));
     }
 
+    public int studentCount() {
+        return cached(Key.of(Report.STUDENT_COUNT), snapshot::size);
+    }
+
+    /** Highest GPAs first, off the GPA indexes; {@code programme}/{@code level} filter when not null. */
     public List<Student> topPerformers(String programme, Integer level) {
-        return students.stream()
-                .filter(s -> programme == null || programme.equals(s.programme()))
-                .filter(s -> level == null || level.equals(s.level()))
-                .sorted(Comparator.comparingDouble(Student::gpa).reversed())
-                .limit(10)
-                .toList();
+        return cached(new Key(Report.TOP_PERFORMERS, programme, level, null),
+                () -> List.copyOf(repo.topByGpa(programme, level, topN, false)));
+    }
+
+    /** Top performers of every programme, ties at the cut included; equal GPAs by ID, as in {@link #topPerformers}. */
+    public Map<String, List<Student>> topPerProgramme() {
+        return cached(Key.of(Report.TOP_PER_PROGRAMME), () -> readOnly(snapshot.topPerProgramme(topN, true)));
+    }
+
+    /** Top performers of every level, ties at the cut included; equal GPAs by ID, as in {@link #topPerformers}. */
+    public Map<Integer, List<Student>> topPerLevel() {
+        return cached(Key.of(Report.TOP_PER_LEVEL), () -> readOnly(snapshot.topPerLevel(topN, true)));
     }
 
+    /** Students with GPA below {@code threshold}, lowest GPA first, as a range scan on the GPA index. */
     public List<Student> atRisk(double threshold) {
-        return students.stream()
-                .filter(s -> s.gpa() < threshold)
-                .toList();
+        return cached(new Key(Report.AT_RISK, null, null, threshold), () -> {
+            List<Student> out = new ArrayList<>();
+            repo.forEachInGpaRange(Double.NEGATIVE_INFINITY, threshold, out::add);
+            return Collections.unmodifiableList(out);
+        });
     }
 
-    public Map<String, Long> programmeSummary() {
-        return students.stream()
-                .collect(Collectors.groupingBy(Student::programme, Collectors.counting()));
+    /** At-risk students per programme; programmes with none are left out. */
+    public Map<String, Long> atRiskByProgramme(double threshold) {
+        return cached(new Key(Report.AT_RISK_BY_PROGRAMME, null, null, threshold),
+                () -> Collections.unmodifiableMap(snapshot.programmeSummaryBelow(threshold)));
+    }
+
+    /** Student count and GPA moments per programme, by programme, from the maintained aggregates. */
+    public Map<String, GpaSummary> programmeSummary() {
+        return cached(Key.of(Report.PROGRAMME_SUMMARY), () -> Collections.unmodifiableMap(stats.programmeSummary()));
     }
 
     public Map<Integer, Long> gpaDistribution() {
-        return students.stream()
-                .collect(Collectors.groupingBy(
-                        s -> (int) Math.floor(s.gpa()),
-                        Collectors.counting()
-                ));
-    }
-
-    // Table builders (safe stubs)
-    public void buildTopPerformersTable(Object table, String p, Integer l) {}
-    public void buildAtRiskTable(Object table, double t) {}
-    public void buildGpaDistributionTable(Object table) {}
-    public void buildProgrammeSummaryTable(Object table) {}
+        return cached(Key.of(Report.GPA_DISTRIBUTION), () -> Collections.unmodifiableMap(snapshot.gpaDistribution()));
+    }
+
+    /** Count, mean, spread, quantiles and histograms per programme and level. */
+    public GpaBreakdown gpaStats() {
+        return cached(Key.of(Report.GPA_STATS), () -> snapshot.gpaStats().readOnly());
+    }
+
+    public List<Student> activeStudents() {
+        return cached(Key.of(Report.ACTIVE), () -> Collections.unmodifiableList(snapshot.activeStudents()));
+    }
+
+    public List<Student> inactiveStudents() {
+        return cached(Key.of(Report.INACTIVE), () -> Collections.unmodifiableList(snapshot.inactiveStudents()));
+    }
+
+    /* =========================
+       INVALIDATION
+       ========================= */
+
+    @Override
+    public void upserted(Student s) {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void deleted(String studentId) {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void reset() {
+        generation.incrementAndGet();
+    }
+
+    /** Bumped by every write; cached reports from an older generation are recomputed. */
+    public long generation() {
+        return generation.get();
+    }
+
+    /* =========================
+       STATS
+       ========================= */
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /* =========================
+       INTERNALS
+       ========================= */
+
+    private static <K> Map<K, List<Student>> readOnly(Map<K, List<Student>> lists) {
+        Map<K, List<Student>> out = new TreeMap<>();
+        lists.forEach((k, students) -> out.put(k, List.copyOf(students)));
+        return Collections.unmodifiableMap(out);
+    }
+
+    /**
+     * The cached value for {@code key} if it was computed at the current generation. A write
+     * during {@code compute} leaves the result tagged with the older generation, so this caller
+     * gets it but the next one recomputes.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Key key, Supplier<T> compute) {
+        long gen = generation.get();
+        Cached c = cache.get(key);
+        if (c != null && c.generation() == gen) {
+            synchronized (this) { hits++; }
+            return (T) c.value();
+        }
+        synchronized (this) { misses++; }
+
+        T value = compute.get();
+        if (cache.size() >= MAX_CACHED) cache.clear(); // thresholds are free-form: keep the key set bounded
+        cache.put(key, new Cached(gen, value));
+        return value;
+    }
 }
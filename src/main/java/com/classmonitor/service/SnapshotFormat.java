@@ -0,0 +1,370 @@
+package com.classmonitor.service;
+
+import com.classmonitor.domain.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary backup format (.cmsnap), read and written sequentially through a FileChannel.
+ *
+ * <pre>
+ *   header      int magic "CMSP", int version, long created (epoch millis)
+ *   programmes  varint n, n x string
+ *   appSettings varint n, n x (string key, string value)
+ *   settings    varint n, n x (string column, double value)   -- the single settings row
+ *   students    (byte 1, row)*, byte 0, varlong row count
+ *   trailer     int CRC32C of every byte before it
+ *
+ *   row     string id, string name, code programme, varint level, double gpa,
+ *           string email, string phone, string date, code status
+ *   string  varint (UTF-8 length + 1), bytes; 0 is null
+ *   code    varint index into a dictionary built while reading; index == dictionary size
+ *           introduces a new entry and is followed by its string
+ * </pre>
+ * Multi-byte numbers are big-endian; varints are unsigned LEB128.
+ */
+public final class SnapshotFormat {
+
+    public static final String EXTENSION = ".cmsnap";
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x434D5350; // "CMSP"
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int TRAILER_BYTES = 4;
+
+    private SnapshotFormat() {}
+
+    /* =========================
+       WRITING
+       ========================= */
+
+    /** Write the sections in order, then {@link #finish()}; closing without finishing leaves an invalid file. */
+    public static final class Writer implements Closeable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> programmeCodes = new HashMap<>();
+        private final Map<String, Integer> statusCodes = new HashMap<>();
+        private long students;
+        private long bytes;
+
+        public Writer(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+        }
+
+        public void programmes(List<String> names) throws IOException {
+            varint(names.size());
+            for (String n : names) string(n);
+        }
+
+        public void appSettings(Map<String, String> values) throws IOException {
+            varint(values.size());
+            for (Map.Entry<String, String> e : values.entrySet()) {
+                string(e.getKey());
+                string(e.getValue());
+            }
+        }
+
+        public void settings(Map<String, Double> columns) throws IOException {
+            varint(columns.size());
+            for (Map.Entry<String, Double> e : columns.entrySet()) {
+                string(e.getKey());
+                room(8);
+                buf.putDouble(e.getValue());
+            }
+        }
+
+        public void student(Student s) throws IOException {
+            room(1);
+            buf.put((byte) 1);
+            string(s.studentId());
+            string(s.fullName());
+            code(programmeCodes, s.programme());
+            varint(s.level());
+            room(8);
+            buf.putDouble(s.gpa());
+            string(s.email());
+            string(s.phone());
+            string(s.enrolledDate());
+            code(statusCodes, s.status());
+            students++;
+        }
+
+        public long students() {
+            return students;
+        }
+
+        /** Ends the student section, appends the checksum and closes the file. */
+        public void finish() throws IOException {
+            room(1);
+            buf.put((byte) 0);
+            varint(students);
+            flush();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) bytes += ch.write(trailer);
+            ch.force(false);
+            ch.close();
+        }
+
+        /** File size once {@link #finish()} has run. */
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+
+        private void code(Map<String, Integer> dictionary, String value) throws IOException {
+            Integer code = dictionary.get(value);
+            if (code != null) {
+                varint(code);
+                return;
+            }
+            varint(dictionary.size());
+            string(value);
+            dictionary.put(value, dictionary.size());
+        }
+
+        private void string(String s) throws IOException {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            int len = s.length();
+            if (ascii(s) && len <= buf.capacity()) {
+                varint(len + 1L);
+                room(len);
+                for (int i = 0; i < len; i++) buf.put((byte) s.charAt(i)); // the common case: no encoder
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1L);
+            for (int off = 0; off < utf8.length; ) {
+                room(1);
+                int n = Math.min(buf.remaining(), utf8.length - off);
+                buf.put(utf8, off, n);
+                off += n;
+            }
+        }
+
+        private void varint(long v) throws IOException {
+            room(10);
+            while ((v & ~0x7FL) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        private void room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.array(), 0, buf.limit());
+            while (buf.hasRemaining()) bytes += ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    /* =========================
+       READING
+       ========================= */
+
+    /**
+     * Reads the sections in the order they were written. The checksum covers the whole file and is
+     * verified when {@link #student()} reaches the end, so apply rows inside a transaction and
+     * roll back if that throws.
+     */
+    public static final class Reader implements Closeable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private final long dataEnd;
+        private final int version;
+        private final long created;
+        private final List<String> programmeCodes = new ArrayList<>();
+        private final List<String> statusCodes = new ArrayList<>();
+        private long students;
+        private boolean done;
+
+        public Reader(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                dataEnd = ch.size() - TRAILER_BYTES;
+                buf.limit(0);
+                need(16);
+                if (buf.getInt() != MAGIC) throw new IOException("Not a snapshot file: " + file.getFileName());
+                version = buf.getInt();
+                if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+                created = buf.getLong();
+            } catch (IOException e) {
+                ch.close();
+                throw e;
+            }
+        }
+
+        public int version() {
+            return version;
+        }
+
+        public long created() {
+            return created;
+        }
+
+        public List<String> programmes() throws IOException {
+            int n = count();
+            List<String> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) out.add(string());
+            return out;
+        }
+
+        public Map<String, String> appSettings() throws IOException {
+            int n = count();
+            Map<String, String> out = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) out.put(string(), string());
+            return out;
+        }
+
+        public Map<String, Double> settings() throws IOException {
+            int n = count();
+            Map<String, Double> out = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                String column = string();
+                need(8);
+                out.put(column, buf.getDouble());
+            }
+            return out;
+        }
+
+        /** Next student, or null after the last one once the row count and checksum check out. */
+        public Student student() throws IOException {
+            if (done) return null;
+            need(1);
+            if (buf.get() == 0) {
+                if (varint() != students) throw corrupt("row count mismatch");
+                if (buf.hasRemaining() || position() != dataEnd) throw corrupt("trailing data");
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+                while (trailer.hasRemaining()) {
+                    if (ch.read(trailer, dataEnd + trailer.position()) < 0) throw corrupt("truncated");
+                }
+                if (trailer.flip().getInt() != (int) crc.getValue()) throw corrupt("checksum mismatch");
+                done = true;
+                return null;
+            }
+            String id = string();
+            String name = string();
+            String programme = code(programmeCodes);
+            int level = (int) varint();
+            need(8);
+            double gpa = buf.getDouble();
+            String email = string();
+            String phone = string();
+            String date = string();
+            String status = code(statusCodes);
+            students++;
+            return new Student(id, name, programme, level, gpa, email, phone, date, status);
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+
+        private String code(List<String> dictionary) throws IOException {
+            long code = varint();
+            if (code < dictionary.size()) return dictionary.get((int) code);
+            if (code != dictionary.size()) throw corrupt("bad dictionary code");
+            String value = string();
+            dictionary.add(value);
+            return value;
+        }
+
+        private String string() throws IOException {
+            long n = varint();
+            if (n == 0) return null;
+            long len = n - 1;
+            if (len > dataEnd) throw corrupt("bad string length");
+            if (len <= buf.capacity()) {
+                need((int) len);
+                String s = new String(buf.array(), buf.position(), (int) len, StandardCharsets.UTF_8);
+                buf.position(buf.position() + (int) len);
+                return s;
+            }
+            byte[] utf8 = new byte[(int) len];
+            for (int off = 0; off < utf8.length; ) {
+                need(1);
+                int k = Math.min(buf.remaining(), utf8.length - off);
+                buf.get(utf8, off, k);
+                off += k;
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        private int count() throws IOException {
+            long n = varint();
+            if (n > Integer.MAX_VALUE) throw corrupt("bad count");
+            return (int) n;
+        }
+
+        private long varint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                need(1);
+                byte b = buf.get();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw corrupt("bad varint");
+        }
+
+        /** Makes at least {@code n} unread bytes available, reading (and checksumming) more of the file. */
+        private void need(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.compact();
+            while (buf.position() < n) {
+                long left = dataEnd - ch.position();
+                if (left <= 0) throw corrupt("truncated");
+                int start = buf.position();
+                buf.limit((int) Math.min(buf.capacity(), start + left));
+                int read = ch.read(buf);
+                if (read < 0) throw corrupt("truncated");
+                crc.update(buf.array(), start, read);
+                buf.limit(buf.capacity());
+            }
+            buf.flip();
+        }
+
+        private long position() throws IOException {
+            return ch.position();
+        }
+
+        private static IOException corrupt(String what) {
+            return new IOException("Snapshot file is corrupt: " + what);
+        }
+    }
+
+    private static boolean ascii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
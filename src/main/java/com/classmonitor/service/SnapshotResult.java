@@ -0,0 +1,12 @@
+package com.classmonitor.service;
+
+import java.nio.file.Path;
+
+/** What a snapshot backup wrote or a restore loaded. */
+public record SnapshotResult(Path file, long students, int programmes, int settings, long bytes, long millis) {
+
+    public String summary() {
+        return students + " students, " + programmes + " programmes, " + settings + " settings, "
+                + bytes + " bytes in " + millis + " ms";
+    }
+}
@@ -0,0 +1,263 @@
+package com.classmonitor.service;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.Schema;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Full backup and restore of students, programmes and settings through {@link SnapshotFormat}.
+ *
+ * A backup reads everything in one read transaction and streams it to the file. A restore replaces
+ * those tables in one write transaction with the FTS triggers suspended, so a bad or truncated
+ * file leaves the database untouched. Callers holding caches (CachingStudentRepository) must
+ * invalidate them after a restore.
+ */
+public final class SnapshotService {
+
+    // rows per executeBatch during restore
+    private static final int RESTORE_BATCH = 10_000;
+
+    private static final String STUDENTS_SQL = """
+        SELECT student_id, full_name, programme, level, gpa, email, phone, date_added, status
+        FROM students ORDER BY student_id
+        """;
+
+    private static final String INSERT_STUDENT_SQL = """
+        INSERT INTO students(student_id, full_name, programme, level, gpa, email, phone, date_added, status, row_hash)
+        VALUES(?,?,?,?,?,?,?,?,?,?)
+        """;
+
+    private final ConnectionManager db;
+
+    public SnapshotService() {
+        this(ConnectionManager.get());
+    }
+
+    public SnapshotService(ConnectionManager db) {
+        this.db = db;
+    }
+
+    /* =========================
+       BACKUP
+       ========================= */
+
+    /** Writes a snapshot to {@code file}, replacing it only once the new one is complete. */
+    public SnapshotResult backup(Path file) {
+        long start = System.nanoTime();
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        try (ConnectionManager.Lease lease = db.read()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false); // every section sees the same database state
+            SnapshotResult result;
+            try (SnapshotFormat.Writer out = new SnapshotFormat.Writer(part)) {
+                List<String> programmes = programmes(lease);
+                Map<String, String> appSettings = appSettings(lease);
+                Map<String, Double> settings = settings(c);
+                out.programmes(programmes);
+                out.appSettings(appSettings);
+                out.settings(settings);
+
+                try (ResultSet rs = lease.prepare(STUDENTS_SQL).executeQuery()) {
+                    while (rs.next()) out.student(map(rs));
+                }
+                out.finish();
+                result = new SnapshotResult(file, out.students(), programmes.size(),
+                        appSettings.size() + settings.size(), out.bytes(), elapsedMillis(start));
+            } finally {
+                if (ownTx) {
+                    c.commit();
+                    c.setAutoCommit(true);
+                }
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            return result;
+        } catch (Exception e) {
+            try { Files.deleteIfExists(part); } catch (Exception ignored) {}
+            throw new RuntimeException("Snapshot backup failed: " + e.getMessage(), e);
+        }
+    }
+
+    /* =========================
+       RESTORE
+       ========================= */
+
+    /** Replaces students, programmes and settings with the contents of {@code file}. */
+    public SnapshotResult restore(Path file) {
+        long start = System.nanoTime();
+        try (SnapshotFormat.Reader in = new SnapshotFormat.Reader(file);
+             ConnectionManager.Lease lease = db.write()) {
+            Connection c = lease.connection();
+            boolean ownTx = c.getAutoCommit();
+            if (ownTx) c.setAutoCommit(false);
+            try {
+                boolean fts = Schema.suspendFtsTriggers(c);
+                Schema.suspendAggregateTriggers(c);
+                try (Statement st = c.createStatement()) {
+                    st.executeUpdate("DELETE FROM students");
+                    st.executeUpdate("DELETE FROM programmes");
+                    st.executeUpdate("DELETE FROM app_settings");
+                }
+
+                List<String> programmes = in.programmes();
+                PreparedStatement ps = lease.prepare("INSERT INTO programmes(name) VALUES(?)");
+                for (String name : programmes) {
+                    ps.setString(1, name);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                Map<String, String> appSettings = in.appSettings();
+                ps = lease.prepare("INSERT INTO app_settings(key, value) VALUES(?, ?)");
+                for (Map.Entry<String, String> e : appSettings.entrySet()) {
+                    ps.setString(1, e.getKey());
+                    ps.setString(2, e.getValue());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                int settings = restoreSettings(c, in.settings());
+
+                long students = 0;
+                ps = lease.prepare(INSERT_STUDENT_SQL);
+                int pending = 0;
+                for (Student s = in.student(); s != null; s = in.student()) {
+                    fill(ps, s);
+                    ps.addBatch();
+                    students++;
+                    if (++pending == RESTORE_BATCH) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) ps.executeBatch();
+
+                if (fts) Schema.resumeFtsTriggers(c);
+                Schema.resumeAggregateTriggers(c);
+
+                // checkpoints describe rows of the replaced data: nothing left to resume
+                ps = lease.prepare("UPDATE import_jobs SET status = ?, updated_at = datetime('now') WHERE status <> ?");
+                ps.setString(1, ImportJob.SUPERSEDED);
+                ps.setString(2, ImportJob.COMPLETED);
+                ps.executeUpdate();
+
+                if (ownTx) c.commit();
+                return new SnapshotResult(file, students, programmes.size(),
+                        appSettings.size() + settings, Files.size(file), elapsedMillis(start));
+            } catch (Exception e) {
+                if (ownTx) c.rollback(); // also undoes the trigger changes
+                throw e;
+            } finally {
+                if (ownTx) c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Snapshot restore failed: " + e.getMessage(), e);
+        }
+    }
+
+    /* =========================
+       INTERNAL HELPERS
+       ========================= */
+
+    private static List<String> programmes(ConnectionManager.Lease lease) throws SQLException {
+        List<String> out = new ArrayList<>();
+        try (ResultSet rs = lease.prepare("SELECT name FROM programmes ORDER BY id").executeQuery()) {
+            while (rs.next()) out.add(rs.getString(1));
+        }
+        return out;
+    }
+
+    private static Map<String, String> appSettings(ConnectionManager.Lease lease) throws SQLException {
+        Map<String, String> out = new LinkedHashMap<>();
+        try (ResultSet rs = lease.prepare("SELECT key, value FROM app_settings ORDER BY key").executeQuery()) {
+            while (rs.next()) out.put(rs.getString(1), rs.getString(2));
+        }
+        return out;
+    }
+
+    /** The numeric columns of the single settings row, by name. */
+    private static Map<String, Double> settings(Connection c) throws SQLException {
+        Map<String, Double> out = new LinkedHashMap<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM settings WHERE id = 1")) {
+            if (!rs.next()) return out;
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String column = meta.getColumnName(i);
+                double value = rs.getDouble(i);
+                if (!column.equalsIgnoreCase("id") && !rs.wasNull()) out.put(column, value);
+            }
+        }
+        return out;
+    }
+
+    // only columns this schema has; names come from the file, so they are checked before use
+    private static int restoreSettings(Connection c, Map<String, Double> values) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (Statement st = c.createStatement()) {
+            try (ResultSet rs = st.executeQuery("PRAGMA table_info(settings)")) {
+                while (rs.next()) columns.add(rs.getString("name").toLowerCase());
+            }
+            st.executeUpdate("INSERT OR IGNORE INTO settings(id) VALUES (1)");
+        }
+        int restored = 0;
+        for (Map.Entry<String, Double> e : values.entrySet()) {
+            String column = e.getKey().toLowerCase();
+            if (column.equals("id") || !columns.contains(column)) continue;
+            try (PreparedStatement ps = c.prepareStatement("UPDATE settings SET " + column + " = ? WHERE id = 1")) {
+                ps.setDouble(1, e.getValue());
+                ps.executeUpdate();
+            }
+            restored++;
+        }
+        return restored;
+    }
+
+    private static Student map(ResultSet rs) throws SQLException {
+        return new Student(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getDouble(5),
+                rs.getString(6),
+                rs.getString(7),
+                rs.getString(8),
+                rs.getString(9)
+        );
+    }
+
+    private static void fill(PreparedStatement ps, Student s) throws SQLException {
+        ps.setString(1, s.studentId());
+        ps.setString(2, s.fullName());
+        ps.setString(3, s.programme());
+        ps.setInt(4, s.level());
+        ps.setDouble(5, s.gpa());
+        ps.setString(6, s.email());
+        ps.setString(7, s.phone());
+        ps.setString(8, s.enrolledDate());
+        ps.setString(9, s.status());
+        ps.setLong(10, s.contentHash());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,175 @@
+package com.classmonitor.service;
+
+import com.classmonitor.domain.Student;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes students as CSV (UTF-8, RFC 4180 quoting) with constant memory.
+ *
+ * Cells are escaped straight into one large char buffer, so a row costs no intermediate
+ * Strings beyond the GPA. A path ending in ".gz" is gzip-compressed. {@link #bytes()} counts
+ * what reached the file, i.e. compressed bytes for .gz. Use as the row sink of a repository
+ * cursor: {@code repo.forEach(writer)}.
+ */
+public final class StudentCsvWriter implements Consumer<Student>, Closeable {
+
+    /** Same columns as the import reads, so an export can be imported again. */
+    public static final String HEADER = "studentId,fullName,programme,level,gpa,email,phone,date,status";
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final CountingOutputStream counter;
+    private final Writer out;
+    private final char[] buf = new char[BUFFER_CHARS];
+    private int len;
+    private long rows;
+
+    public StudentCsvWriter(Path file) throws IOException {
+        this.counter = new CountingOutputStream(Files.newOutputStream(file));
+        OutputStream target = isGzip(file) ? new GZIPOutputStream(counter, GZIP_BUFFER_BYTES) : counter;
+        this.out = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+        raw(HEADER);
+        raw('\n');
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    /** Appends one row; IO errors are rethrown unchecked so this works as a cursor callback. */
+    @Override
+    public void accept(Student s) {
+        try {
+            cell(s.studentId());
+            raw(',');
+            cell(s.fullName());
+            raw(',');
+            cell(s.programme());
+            raw(',');
+            number(s.level());
+            raw(',');
+            raw(String.valueOf(s.gpa()));
+            raw(',');
+            cell(s.email());
+            raw(',');
+            cell(s.phone());
+            raw(',');
+            cell(s.dateAddedIso());
+            raw(',');
+            cell(s.status());
+            raw('\n');
+            rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /** Bytes written to the file so far (flushed data only until {@link #close()}). */
+    public long bytes() {
+        return counter.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close(); // finishes the gzip trailer
+        }
+    }
+
+    /* =========================
+       ENCODING
+       ========================= */
+
+    /** Quoted only if it contains a comma, quote or line break; surrounding spaces are dropped. */
+    private void cell(String v) throws IOException {
+        if (v == null) return;
+        int from = 0, to = v.length();
+        while (from < to && v.charAt(from) <= ' ') from++;
+        while (to > from && v.charAt(to - 1) <= ' ') to--;
+
+        boolean quote = false;
+        for (int i = from; i < to && !quote; i++) {
+            char c = v.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            for (int i = from; i < to; i++) raw(v.charAt(i));
+            return;
+        }
+        raw('"');
+        for (int i = from; i < to; i++) {
+            char c = v.charAt(i);
+            if (c == '"') raw('"');
+            raw(c);
+        }
+        raw('"');
+    }
+
+    private void number(int n) throws IOException {
+        if (n < 0) {
+            raw(Integer.toString(n));
+            return;
+        }
+        if (len + 10 > buf.length) flushBuffer();
+        int start = len, end = len + (n == 0 ? 1 : (int) Math.log10(n) + 1);
+        for (int i = end - 1; i >= start; i--) {
+            buf[i] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        len = end;
+    }
+
+    private void raw(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) raw(s.charAt(i));
+    }
+
+    private void raw(char c) throws IOException {
+        if (len == buf.length) flushBuffer();
+        buf[len++] = c;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, len);
+        len = 0;
+    }
+
+    /** Counts bytes on their way to the file. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
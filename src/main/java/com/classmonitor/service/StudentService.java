@@ -3,19 +3,22 @@ package com.classmonitor.service;
 import com.classmonitor.ValidationException;
 import com.classmonitor.domain.Student;
 import com.classmonitor.util.AppLogger;
+import com.classmonitor.repository.PageCursor;
+import com.classmonitor.repository.StudentPage;
 import com.classmonitor.repository.StudentRepository;
+import com.classmonitor.repository.StudentSort;
 import java.util.List;
 import com.classmonitor.domain.Student;
 
 
 
-import java.time.LocalDate;
-
 public final class StudentService {
     private final StudentRepository repo;
+    private final StudentValidator validator;
 
     public StudentService(StudentRepository repo) {
         this.repo = repo;
+        this.validator = new StudentValidator(repo);
     }
 
     public List<Student> search(String q) {
@@ -45,75 +48,23 @@ public final class StudentService {
         return repo.findAll();
     }
 
-    public void validate(Student s, boolean isCreate) {
-        if (s == null) throw new ValidationException("Student is required.");
-
-        // Student ID: required, 4-20, letters/digits only, unique
-        String id = safe(s.studentId());
-        if (id.isEmpty()) throw new ValidationException("Student ID is required.");
-        if (id.length() < 4 || id.length() > 20) throw new ValidationException("Student ID must be 4 to 20 characters.");
-        if (!id.matches("^[A-Za-z0-9]+$")) throw new ValidationException("Student ID must contain letters and digits only.");
-        if (isCreate && repo.existsById(id)) throw new ValidationException("Student ID already exists.");
-
-        // Full name: required, 2-60, no digits
-        String name = safe(s.fullName());
-        if (name.length() < 2 || name.length() > 60) throw new ValidationException("Full name must be 2 to 60 characters.");
-        if (name.matches(".*\\d.*")) throw new ValidationException("Full name must not contain digits.");
-
-        // Programme: required
-        if (safe(s.programme()).isEmpty()) throw new ValidationException("Programme is required.");
-
-        // Level: one of 100..700
-        int level = s.level();
-        if (!(level == 100 || level == 200 || level == 300 || level == 400 || level == 500 || level == 600 || level == 700))
-            throw new com.classmonitor.ValidationException("Level must be one of: 100, 200, 300, 400, 500, 600, 700.");
-
-        // GPA: 0.0..5.0
-        double gpa = s.gpa();
-        if (gpa < 0.0 || gpa > 5.0) throw new com.classmonitor.ValidationException("GPA must be between 0.0 and 4.0.");
-
-        // Email: contains @ and .
-        String email = safe(s.email());
-        if (!(email.contains("@") && email.contains("."))) throw new com.classmonitor.ValidationException("Email must contain @ and a dot.");
-
-        // Phone: 10-15 digits only
-        String phone = safe(s.phone());
-        if (!phone.matches("^\\d{10,15}$")) throw new com.classmonitor.ValidationException("Phone number must be 10 to 15 digits (digits only).");
-
-
-        // Date added: required ISO
-        String dateIso = safe(s.dateAddedIso());
-        if (dateIso.isEmpty()) throw new com.classmonitor.ValidationException("Date added is required.");
-        try { LocalDate.parse(dateIso); } catch (Exception e) { throw new com.classmonitor.ValidationException("Date added must be a valid date (YYYY-MM-DD)."); }
-
-        // Status: Active/Inactive
-        String status = safe(s.status());
-        if (!(status.equals("Active") || status.equals("Inactive")))
-            throw new com.classmonitor.ValidationException("Status must be Active or Inactive.");
-
-// normalize: keep only digits
-        String digits = phone.replaceAll("\\D", "");
-
-        if (!digits.isEmpty() && (digits.length() < 10 || digits.length() > 15)) {
-            throw new ValidationException("Phone number must be 10 to 15 digits.");
-        }
-
-
-        if (!email.isBlank()) {
-            // Strict but reasonable email pattern
-            String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
-
-            if (!email.matches(emailRegex)) {
-                throw new ValidationException("Please enter a valid email address (e.g. user@gmail.com).");
-            }
-        }
-
+    /** First page in the given order. */
+    public StudentPage firstPage(int pageSize, StudentSort sort) {
+        return repo.findPage(null, pageSize, sort);
+    }
 
+    /** Page following {@code after} (from the previous page's {@code next()}). */
+    public StudentPage nextPage(PageCursor after, int pageSize, StudentSort sort) {
+        return repo.findPage(after, pageSize, sort);
+    }
 
+    public long count() {
+        return repo.count();
     }
 
-    private static String safe(String s) {
-        return s == null ? "" : s.trim();
+    /** Throws a ValidationException listing every rule {@code s} breaks. */
+    public void validate(Student s, boolean isCreate) {
+        validator.validate(s, isCreate);
     }
 
     public void create(Student student) {
@@ -0,0 +1,426 @@
+package com.classmonitor.service;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of the students table for the report screens.
+ *
+ * GPA, level, programme (dictionary-encoded) and active status live in primitive arrays,
+ * so the report queries are plain loops over them. Student objects are only touched to
+ * build the rows that are returned.
+ *
+ * A snapshot built with {@link #of(StudentRepository)} loads lazily and, when registered as
+ * a {@link CachingStudentRepository.Listener}, patches single rows in place on each write
+ * instead of reloading everything. Thread-safe.
+ */
+public final class StudentSnapshot implements CachingStudentRepository.Listener {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // smallest row range worth handing to another thread in gpaStats()
+    private static final int STATS_PARTITION_ROWS = 1 << 16;
+
+    // null for fixed snapshots built from a list
+    private final StudentRepository source;
+    private boolean loaded;
+
+    // ---- columns (index = row) ----
+    private int size;
+    private Student[] rows = new Student[INITIAL_CAPACITY];
+    private double[] gpa = new double[INITIAL_CAPACITY];
+    private int[] level = new int[INITIAL_CAPACITY];
+    private int[] programme = new int[INITIAL_CAPACITY];
+    private final BitSet active = new BitSet(INITIAL_CAPACITY);
+
+    private final Map<String, Integer> rowById = new HashMap<>();
+
+    // ---- programme dictionary (ids are never reused) ----
+    private final List<String> programmeNames = new ArrayList<>();
+    private final Map<String, Integer> programmeIds = new HashMap<>();
+
+    private StudentSnapshot(StudentRepository source) {
+        this.source = source;
+    }
+
+    /** Snapshot that loads from {@code source} on first use and again after {@link #reset()}. */
+    public static StudentSnapshot of(StudentRepository source) {
+        return new StudentSnapshot(source);
+    }
+
+    /** Fixed snapshot of {@code students}. */
+    public static StudentSnapshot of(Collection<Student> students) {
+        StudentSnapshot snap = new StudentSnapshot(null);
+        snap.load(students);
+        return snap;
+    }
+
+    /* =========================
+       CHANGES
+       ========================= */
+
+    @Override
+    public synchronized void upserted(Student s) {
+        if (!loaded) return; // the next load will see it
+        Integer row = rowById.get(s.studentId());
+        if (row == null) {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowById.put(s.studentId(), row);
+        }
+        set(row, s);
+    }
+
+    @Override
+    public synchronized void deleted(String studentId) {
+        if (!loaded) return;
+        Integer row = rowById.remove(studentId);
+        if (row == null) return;
+
+        // move the last row into the hole
+        int last = --size;
+        if (row != last) {
+            set(row, rows[last]);
+            rowById.put(rows[row].studentId(), row);
+        }
+        rows[last] = null;
+        active.clear(last);
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (source != null) loaded = false;
+    }
+
+    /* =========================
+       QUERIES
+       ========================= */
+
+    public synchronized int size() {
+        ensureLoaded();
+        return size;
+    }
+
+    public synchronized int activeCount() {
+        ensureLoaded();
+        return active.cardinality();
+    }
+
+    /** Programme names present in the snapshot, sorted. */
+    public synchronized List<String> programmes() {
+        ensureLoaded();
+        int[] counts = countByProgramme(Double.POSITIVE_INFINITY);
+        List<String> out = new ArrayList<>();
+        for (int p = 0; p < counts.length; p++) {
+            if (counts[p] > 0) out.add(programmeNames.get(p));
+        }
+        out.sort(null);
+        return out;
+    }
+
+    /** Highest GPAs first; {@code programme}/{@code level} filter when not null. */
+    public synchronized List<Student> topPerformers(String programme, Integer level, int k) {
+        return topPerformers(programme, level, k, false);
+    }
+
+    /**
+     * Highest GPAs first, equal GPAs by student ID; {@code programme}/{@code level} filter
+     * when not null. With {@code withTies}, students sharing the k-th GPA are included as well.
+     */
+    public synchronized List<Student> topPerformers(String programme, Integer level, int k, boolean withTies) {
+        ensureLoaded();
+        if (k < 1) return List.of();
+
+        int p = -1;
+        if (programme != null) {
+            Integer id = programmeIds.get(programme);
+            if (id == null) return List.of();
+            p = id;
+        }
+        boolean anyLevel = level == null;
+        int lv = anyLevel ? 0 : level;
+
+        GpaTopK top = new GpaTopK(k, withTies, this::compareIds);
+        for (int i = 0; i < size; i++) {
+            if (p >= 0 && this.programme[i] != p) continue;
+            if (!anyLevel && this.level[i] != lv) continue;
+            top.offer(i, gpa[i]);
+        }
+        int[] best = top.result();
+        return rowsOf(best, best.length);
+    }
+
+    /** {@link #topPerformers} for every programme at once, in one pass; sorted by programme. */
+    public synchronized Map<String, List<Student>> topPerProgramme(int k, boolean withTies) {
+        ensureLoaded();
+        if (k < 1) return Map.of();
+        GpaTopK[] tops = new GpaTopK[programmeNames.size()];
+        for (int i = 0; i < size; i++) {
+            int p = programme[i];
+            if (tops[p] == null) tops[p] = new GpaTopK(k, withTies, this::compareIds);
+            tops[p].offer(i, gpa[i]);
+        }
+        Map<String, List<Student>> out = new TreeMap<>();
+        for (int p = 0; p < tops.length; p++) {
+            if (tops[p] == null) continue;
+            int[] best = tops[p].result();
+            out.put(programmeNames.get(p), rowsOf(best, best.length));
+        }
+        return out;
+    }
+
+    /** {@link #topPerformers} for every level at once, in one pass; sorted by level. */
+    public synchronized Map<Integer, List<Student>> topPerLevel(int k, boolean withTies) {
+        ensureLoaded();
+        if (k < 1) return Map.of();
+        Map<Integer, GpaTopK> tops = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            tops.computeIfAbsent(level[i], lv -> new GpaTopK(k, withTies, this::compareIds)).offer(i, gpa[i]);
+        }
+        Map<Integer, List<Student>> out = new TreeMap<>();
+        for (Map.Entry<Integer, GpaTopK> e : tops.entrySet()) {
+            int[] best = e.getValue().result();
+            out.put(e.getKey(), rowsOf(best, best.length));
+        }
+        return out;
+    }
+
+    /** Students with GPA below {@code threshold}, lowest GPA first. */
+    public synchronized List<Student> atRisk(double threshold) {
+        ensureLoaded();
+        int[] idx = new int[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (gpa[i] < threshold) idx[n++] = i;
+        }
+        sortByGpa(idx, n);
+        return rowsOf(idx, n);
+    }
+
+    public synchronized int atRiskCount(double threshold) {
+        ensureLoaded();
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (gpa[i] < threshold) n++;
+        }
+        return n;
+    }
+
+    /** Students per programme. */
+    public synchronized Map<String, Long> programmeSummary() {
+        return programmeSummaryBelow(Double.POSITIVE_INFINITY);
+    }
+
+    /** Students per programme with GPA below {@code threshold}; programmes with none are left out. */
+    public synchronized Map<String, Long> programmeSummaryBelow(double threshold) {
+        ensureLoaded();
+        int[] counts = countByProgramme(threshold);
+        Map<String, Long> out = new TreeMap<>();
+        for (int p = 0; p < counts.length; p++) {
+            if (counts[p] > 0) out.put(programmeNames.get(p), (long) counts[p]);
+        }
+        return out;
+    }
+
+    /** Students per whole-number GPA band (0 = [0,1), 1 = [1,2), ...). */
+    public synchronized Map<Integer, Long> gpaDistribution() {
+        ensureLoaded();
+        long[] bands = new long[8];
+        for (int i = 0; i < size; i++) {
+            int b = (int) Math.floor(gpa[i]);
+            if (b < 0) b = 0;
+            if (b >= bands.length) bands = Arrays.copyOf(bands, b + 1);
+            bands[b]++;
+        }
+        Map<Integer, Long> out = new TreeMap<>();
+        for (int b = 0; b < bands.length; b++) {
+            if (bands[b] > 0) out.put(b, bands[b]);
+        }
+        return out;
+    }
+
+    /**
+     * GPA statistics per programme and level in one pass over the columns. Large snapshots are
+     * split into row ranges collected in parallel, then merged; programme, level and overall
+     * figures are merged from the programme/level cells.
+     */
+    public synchronized GpaBreakdown gpaStats() {
+        ensureLoaded();
+        // workers read the columns while this thread holds the lock, so nothing changes under them
+        int n = size;
+        double[] gpa = this.gpa;
+        int[] level = this.level;
+        int[] programme = this.programme;
+        int[] levels = distinctLevels();
+        int cells = programmeNames.size() * levels.length;
+
+        int parts = Math.max(1, Math.min(n / STATS_PARTITION_ROWS, ForkJoinPool.getCommonPoolParallelism() * 2));
+        GpaStats[] merged = IntStream.range(0, parts).parallel()
+                .mapToObj(part -> {
+                    GpaStats[] local = new GpaStats[cells];
+                    int to = (int) ((long) n * (part + 1) / parts);
+                    for (int i = (int) ((long) n * part / parts); i < to; i++) {
+                        int cell = programme[i] * levels.length + Arrays.binarySearch(levels, level[i]);
+                        if (local[cell] == null) local[cell] = new GpaStats();
+                        local[cell].add(gpa[i]);
+                    }
+                    return local;
+                })
+                .reduce((a, b) -> {
+                    for (int c = 0; c < cells; c++) {
+                        if (b[c] == null) continue;
+                        if (a[c] == null) a[c] = b[c];
+                        else a[c].merge(b[c]);
+                    }
+                    return a;
+                })
+                .orElseGet(() -> new GpaStats[0]);
+
+        GpaStats overall = new GpaStats();
+        Map<String, GpaStats> byProgramme = new TreeMap<>();
+        Map<Integer, GpaStats> byLevel = new TreeMap<>();
+        Map<String, Map<Integer, GpaStats>> byProgrammeAndLevel = new TreeMap<>();
+        for (int c = 0; c < merged.length; c++) {
+            GpaStats s = merged[c];
+            if (s == null) continue;
+            String p = programmeNames.get(c / levels.length);
+            int lv = levels[c % levels.length];
+            byProgrammeAndLevel.computeIfAbsent(p, k -> new TreeMap<>()).put(lv, s);
+            byProgramme.computeIfAbsent(p, k -> new GpaStats()).merge(s);
+            byLevel.computeIfAbsent(lv, k -> new GpaStats()).merge(s);
+            overall.merge(s);
+        }
+        return new GpaBreakdown(overall, byProgramme, byLevel, byProgrammeAndLevel);
+    }
+
+    public synchronized List<Student> activeStudents() {
+        return byStatus(true);
+    }
+
+    public synchronized List<Student> inactiveStudents() {
+        return byStatus(false);
+    }
+
+    /* =========================
+       INTERNALS
+       ========================= */
+
+    private void ensureLoaded() {
+        if (!loaded) load(source.findAll());
+    }
+
+    private void load(Collection<Student> students) {
+        size = 0;
+        rowById.clear();
+        active.clear();
+        Arrays.fill(rows, null);
+        ensureCapacity(students.size());
+
+        for (Student s : students) {
+            Integer row = rowById.putIfAbsent(s.studentId(), size);
+            if (row == null) row = size++;
+            set(row, s);
+        }
+        loaded = true;
+    }
+
+    private void set(int row, Student s) {
+        rows[row] = s;
+        gpa[row] = s.gpa();
+        level[row] = s.level();
+        programme[row] = programmeId(s.programme());
+        active.set(row, s.isActive());
+    }
+
+    private int programmeId(String name) {
+        String key = name == null ? "" : name;
+        Integer id = programmeIds.get(key);
+        if (id != null) return id;
+        programmeIds.put(key, programmeNames.size());
+        programmeNames.add(key);
+        return programmeNames.size() - 1;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= rows.length) return;
+        int cap = Math.max(needed, rows.length * 2);
+        rows = Arrays.copyOf(rows, cap);
+        gpa = Arrays.copyOf(gpa, cap);
+        level = Arrays.copyOf(level, cap);
+        programme = Arrays.copyOf(programme, cap);
+    }
+
+    // sorted; a handful of values, so rows find theirs by binary search
+    private int[] distinctLevels() {
+        int[] out = new int[8];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int lv = level[i];
+            if (n > 0 && out[n - 1] == lv) continue; // rows often come grouped
+            int at = Arrays.binarySearch(out, 0, n, lv);
+            if (at >= 0) continue;
+            at = -at - 1;
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            System.arraycopy(out, at, out, at + 1, n - at);
+            out[at] = lv;
+            n++;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private int[] countByProgramme(double below) {
+        int[] counts = new int[programmeNames.size()];
+        for (int i = 0; i < size; i++) {
+            if (gpa[i] < below) counts[programme[i]]++;
+        }
+        return counts;
+    }
+
+    private List<Student> byStatus(boolean wantActive) {
+        ensureLoaded();
+        List<Student> out = new ArrayList<>();
+        if (wantActive) {
+            for (int i = active.nextSetBit(0); i >= 0 && i < size; i = active.nextSetBit(i + 1)) out.add(rows[i]);
+        } else {
+            for (int i = active.nextClearBit(0); i < size; i = active.nextClearBit(i + 1)) out.add(rows[i]);
+        }
+        return out;
+    }
+
+    // top-k tie-break, as ORDER BY gpa DESC, student_id
+    private int compareIds(int a, int b) {
+        return rows[a].studentId().compareTo(rows[b].studentId());
+    }
+
+    private List<Student> rowsOf(int[] idx, int n) {
+        List<Student> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(rows[idx[i]]);
+        return out;
+    }
+
+    /**
+     * Sorts row indices by ascending GPA without boxing: each key packs the GPA's float bits
+     * (order-preserving for non-negative values) above the row index.
+     */
+    private void sortByGpa(int[] idx, int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long bits = Float.floatToIntBits((float) Math.max(0.0, gpa[idx[i]]));
+            keys[i] = (bits << 32) | idx[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++) idx[i] = (int) keys[i];
+    }
+}
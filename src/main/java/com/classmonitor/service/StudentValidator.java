@@ -0,0 +1,238 @@
+package com.classmonitor.service;
+
+import com.classmonitor.ValidationException;
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Student rules shared by the student form and the CSV import.
+ *
+ * Every rule is a hand-written character check that returns a constant message (or null), so
+ * validating a valid student allocates nothing. {@link #check(Student)} reports all violations
+ * rather than stopping at the first; {@link #validate} adds the "already exists" check for new
+ * students.
+ *
+ * The import instance treats email and phone as optional (they are optional CSV columns); a
+ * value that is present must still be valid. Stored and repeated IDs are not import errors:
+ * the import upserts, and {@code upsertChanged} looks up a whole batch's IDs in one set-based
+ * query. Thread-safe.
+ */
+public final class StudentValidator {
+
+    public static final double MAX_GPA = 5.0; // same range as the Settings thresholds
+
+    static final String ID_REQUIRED = "Student ID is required.";
+    static final String ID_LENGTH = "Student ID must be 4 to 20 characters.";
+    static final String ID_CHARS = "Student ID must contain letters and digits only.";
+    static final String ID_EXISTS = "Student ID already exists.";
+    static final String NAME_LENGTH = "Full name must be 2 to 60 characters.";
+    static final String NAME_DIGITS = "Full name must not contain digits.";
+    static final String PROGRAMME_REQUIRED = "Programme is required.";
+    static final String LEVEL_RANGE = "Level must be one of: 100, 200, 300, 400, 500, 600, 700.";
+    static final String GPA_RANGE = "GPA must be between 0.0 and 5.0.";
+    static final String EMAIL_PARTS = "Email must contain @ and a dot.";
+    static final String EMAIL_FORMAT = "Please enter a valid email address (e.g. user@gmail.com).";
+    static final String PHONE_DIGITS = "Phone number must be 10 to 15 digits (digits only).";
+    static final String DATE_REQUIRED = "Date added is required.";
+    static final String DATE_FORMAT = "Date added must be a valid date (YYYY-MM-DD).";
+    static final String STATUS_VALUE = "Status must be Active or Inactive.";
+
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final StudentRepository repo;
+    private final boolean contactRequired;
+
+    /** Form rules; {@code repo} is used for the "already exists" check on create. */
+    public StudentValidator(StudentRepository repo) {
+        this(repo, true);
+    }
+
+    private StudentValidator(StudentRepository repo, boolean contactRequired) {
+        this.repo = repo;
+        this.contactRequired = contactRequired;
+    }
+
+    /** Import rules: no database checks (imports upsert), blank email/phone allowed. */
+    public static StudentValidator forImport() {
+        return new StudentValidator(null, false);
+    }
+
+    /* =========================
+       RECORDS
+       ========================= */
+
+    /** All violations of the field rules (no database access); empty if valid. */
+    public List<String> check(Student s) {
+        List<String> out = null;
+        out = add(out, idError(s.studentId()));
+        out = add(out, nameError(s.fullName()));
+        out = add(out, programmeError(s.programme()));
+        out = add(out, levelError(s.level()));
+        out = add(out, gpaError(s.gpa()));
+        out = add(out, emailError(s.email()));
+        out = add(out, phoneError(s.phone()));
+        out = add(out, dateError(s.dateAddedIso()));
+        out = add(out, statusError(s.status()));
+        return out == null ? List.of() : out;
+    }
+
+    /** Throws with every violation if the student is not valid; {@code isCreate} also rejects a stored ID. */
+    public void validate(Student s, boolean isCreate) {
+        if (s == null) throw new ValidationException("Student is required.");
+        List<String> v = check(s);
+        String id = trim(s.studentId());
+        if (isCreate && repo != null && !id.isEmpty() && repo.existsById(id)) v = add(v, ID_EXISTS);
+        if (!v.isEmpty()) throw new ValidationException(v);
+    }
+
+    /* =========================
+       FIELDS (null = valid)
+       ========================= */
+
+    public String idError(String id) {
+        int from = start(id), to = end(id, from);
+        int len = to - from;
+        if (len == 0) return ID_REQUIRED;
+        if (len < 4 || len > 20) return ID_LENGTH;
+        for (int i = from; i < to; i++) {
+            if (!isAsciiLetterOrDigit(id.charAt(i))) return ID_CHARS;
+        }
+        return null;
+    }
+
+    public String nameError(String name) {
+        int from = start(name), to = end(name, from);
+        int len = to - from;
+        if (len < 2 || len > 60) return NAME_LENGTH;
+        for (int i = from; i < to; i++) {
+            if (Character.isDigit(name.charAt(i))) return NAME_DIGITS;
+        }
+        return null;
+    }
+
+    public String programmeError(String programme) {
+        return isBlank(programme) ? PROGRAMME_REQUIRED : null;
+    }
+
+    public String levelError(int level) {
+        return level >= 100 && level <= 700 && level % 100 == 0 ? null : LEVEL_RANGE;
+    }
+
+    public String gpaError(double gpa) {
+        return gpa >= 0.0 && gpa <= MAX_GPA ? null : GPA_RANGE; // also rejects NaN
+    }
+
+    /** local@domain.tld: local part [A-Za-z0-9+_.-]+, domain [A-Za-z0-9.-]+, tld 2+ letters. */
+    public String emailError(String email) {
+        if (!contactRequired && isBlank(email)) return null;
+        int from = start(email), to = end(email, from);
+        int at = -1, lastDot = -1;
+        for (int i = from; i < to; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) return EMAIL_FORMAT;
+                at = i;
+            } else if (c == '.') {
+                lastDot = i;
+            }
+        }
+        if (at < 0 || lastDot < 0) return EMAIL_PARTS;
+        if (at == from || lastDot < at + 2 || to - lastDot - 1 < 2) return EMAIL_FORMAT;
+
+        for (int i = from; i < at; i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '+' && c != '_' && c != '.' && c != '-') return EMAIL_FORMAT;
+        }
+        for (int i = at + 1; i < lastDot; i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '.' && c != '-') return EMAIL_FORMAT;
+        }
+        for (int i = lastDot + 1; i < to; i++) {
+            char c = email.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z')) return EMAIL_FORMAT;
+        }
+        return null;
+    }
+
+    public String phoneError(String phone) {
+        if (!contactRequired && isBlank(phone)) return null;
+        int from = start(phone), to = end(phone, from);
+        int len = to - from;
+        if (len < 10 || len > 15) return PHONE_DIGITS;
+        for (int i = from; i < to; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') return PHONE_DIGITS;
+        }
+        return null;
+    }
+
+    /** Strict ISO yyyy-MM-dd, checked without parsing (leap years included). */
+    public String dateError(String date) {
+        int from = start(date), to = end(date, from);
+        if (to == from) return DATE_REQUIRED;
+        if (to - from != 10 || date.charAt(from + 4) != '-' || date.charAt(from + 7) != '-') return DATE_FORMAT;
+
+        int year = digits(date, from, 4), month = digits(date, from + 5, 2), day = digits(date, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) return DATE_FORMAT;
+        if (month == 2 && day == 29 && !(year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) return DATE_FORMAT;
+        return null;
+    }
+
+    public String statusError(String status) {
+        String s = trim(status);
+        return s.equals("Active") || s.equals("Inactive") ? null : STATUS_VALUE;
+    }
+
+    /* =========================
+       HELPERS
+       ========================= */
+
+    private static List<String> add(List<String> list, String violation) {
+        if (violation == null) return list;
+        List<String> out = list == null || list.isEmpty() ? new ArrayList<>(2) : list;
+        out.add(violation);
+        return out;
+    }
+
+    /** Index of the first non-whitespace char (0 for null). */
+    private static int start(String s) {
+        if (s == null) return 0;
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    /** End of the string without trailing whitespace, at least {@code from}. */
+    private static int end(String s, int from) {
+        if (s == null) return 0;
+        int i = s.length();
+        while (i > from && s.charAt(i - 1) <= ' ') i--;
+        return i;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static String trim(String s) {
+        return s == null ? "" : s.trim();
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9';
+    }
+
+    /** Value of {@code n} decimal digits at {@code from}, or -1 if any is not a digit. */
+    private static int digits(String s, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
@@ -4,8 +4,13 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
 import com.classmonitor.repository.sqlite.SqliteStudentRepository;
 import com.classmonitor.service.StudentService;
+import com.classmonitor.service.AtRiskService;
+import com.classmonitor.service.ReportService;
+import com.classmonitor.service.StudentSnapshot;
 
 import java.util.prefs.Preferences;
 
@@ -112,15 +117,47 @@ public final class AppNavigator {
         }
     }
 
-    private static final SqliteStudentRepository STUDENT_REPO =
-            new SqliteStudentRepository();
+    // One cached repository for the whole app so every screen sees the same writes
+    private static final CachingStudentRepository STUDENT_REPO =
+            new CachingStudentRepository(new SqliteStudentRepository());
 
     private static final StudentService STUDENT_SERVICE =
             new StudentService(STUDENT_REPO);
 
+    // Columnar copy for the report screens, patched by every write through STUDENT_REPO
+    private static final StudentSnapshot STUDENT_SNAPSHOT = StudentSnapshot.of(STUDENT_REPO);
+
+    // At-risk lists and threshold changes, as GPA range scans
+    private static final AtRiskService AT_RISK = new AtRiskService(STUDENT_REPO);
+
+    // Cached report results, recomputed after any write through STUDENT_REPO
+    private static final ReportService REPORTS =
+            new ReportService(STUDENT_REPO, new SqliteStatsRepository(), STUDENT_SNAPSHOT);
+
+    static {
+        STUDENT_REPO.addListener(STUDENT_SNAPSHOT);
+        STUDENT_REPO.addListener(REPORTS); // after the snapshot it reads
+    }
+
     public static StudentService studentService() {
         return STUDENT_SERVICE;
     }
 
+    public static CachingStudentRepository studentRepository() {
+        return STUDENT_REPO;
+    }
+
+    public static StudentSnapshot studentSnapshot() {
+        return STUDENT_SNAPSHOT;
+    }
+
+    public static AtRiskService atRiskService() {
+        return AT_RISK;
+    }
+
+    public static ReportService reportService() {
+        return REPORTS;
+    }
+
 
 }
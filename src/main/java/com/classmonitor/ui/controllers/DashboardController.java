@@ -1,7 +1,8 @@
 package com.classmonitor.ui.controllers;
 
-import com.classmonitor.repository.StudentRepository;
-import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.repository.DashboardStats;
+import com.classmonitor.repository.StatsRepository;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
 import com.classmonitor.ui.AppNavigator;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -11,8 +12,7 @@ import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Label;
 
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Locale;
 
 public class DashboardController {
 
@@ -24,7 +24,7 @@ public class DashboardController {
     @FXML private PieChart gpaPie;
     @FXML private BarChart<String, Number> gpaBar;
 
-    private final StudentRepository repo = new SqliteStudentRepository();
+    private final StatsRepository statsRepo = new SqliteStatsRepository();
 
     @FXML
     public void initialize() {
@@ -37,38 +37,22 @@ public class DashboardController {
             @Override
             protected Void call() {
 
-                var all = repo.findAll();
-
-                long total = all.size();
-                long active = all.stream().filter(s -> "Active".equalsIgnoreCase(s.status())).count();
-                long inactive = total - active;
-                double avg = all.stream().mapToDouble(s -> s.gpa()).average().orElse(0.0);
-
-                // GPA Distribution buckets
-                long atRisk = all.stream().filter(s -> s.gpa() < 2.5).count();
-                long mid = all.stream().filter(s -> s.gpa() >= 2.5 && s.gpa() < 3.5).count();
-                long top = all.stream().filter(s -> s.gpa() >= 3.5).count();
-
-                // GPA by Level (average GPA per level)
-                Map<Integer, double[]> sums = new TreeMap<>(); // level -> [sum, count]
-                for (var s : all) {
-                    sums.computeIfAbsent(s.level(), k -> new double[]{0.0, 0.0});
-                    sums.get(s.level())[0] += s.gpa();
-                    sums.get(s.level())[1] += 1.0;
-                }
+                DashboardStats stats = statsRepo.dashboardStats();
 
                 Platform.runLater(() -> {
                     // Stats
-                    totalLbl.setText(String.valueOf(total));
-                    activeLbl.setText(String.valueOf(active));
-                    inactiveLbl.setText(String.valueOf(inactive));
-                    avgGpaLbl.setText(String.format("%.2f", avg));
-
-                    // Pie: GPA Distribution
+                    totalLbl.setText(String.valueOf(stats.total()));
+                    activeLbl.setText(String.valueOf(stats.active()));
+                    inactiveLbl.setText(String.valueOf(stats.inactive()));
+                    avgGpaLbl.setText(String.format("%.2f", stats.averageGpa()));
+
+                    // Pie: GPA Distribution (bucket edges from Settings)
+                    double lo = stats.atRiskBelow();
+                    double hi = stats.topFrom();
                     gpaPie.getData().setAll(
-                            new PieChart.Data("At Risk (<2.5)", atRisk),
-                            new PieChart.Data("Average (2.5–3.49)", mid),
-                            new PieChart.Data("Top (≥3.5)", top)
+                            new PieChart.Data(String.format(Locale.US, "At Risk (<%.2f)", lo), stats.atRisk()),
+                            new PieChart.Data(String.format(Locale.US, "Average (%.2f–<%.2f)", lo, hi), stats.middle()),
+                            new PieChart.Data(String.format(Locale.US, "Top (≥%.2f)", hi), stats.top())
                     );
 
                     // Bar: Avg GPA by Level
@@ -76,13 +60,8 @@ public class DashboardController {
                     var series = new XYChart.Series<String, Number>();
                     series.setName("Avg GPA");
 
-                    for (var e : sums.entrySet()) {
-                        int level = e.getKey();
-                        double sum = e.getValue()[0];
-                        double count = e.getValue()[1];
-                        double avgLevelGpa = (count == 0) ? 0.0 : (sum / count);
-
-                        series.getData().add(new XYChart.Data<>(String.valueOf(level), avgLevelGpa));
+                    for (var e : stats.avgGpaByLevel().entrySet()) {
+                        series.getData().add(new XYChart.Data<>(String.valueOf(e.getKey()), e.getValue()));
                     }
 
                     gpaBar.getData().add(series);
@@ -1,14 +1,24 @@
 package com.classmonitor.ui.controllers;
 
-import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.StudentRepository;
 import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.CancellationToken;
 import com.classmonitor.service.CsvService;
+import com.classmonitor.service.ExportResult;
+import com.classmonitor.service.ImportProgress;
 import com.classmonitor.service.ImportResult;
-import com.classmonitor.service.StudentService;
+import com.classmonitor.service.SnapshotFormat;
+import com.classmonitor.service.SnapshotResult;
+import com.classmonitor.service.SnapshotService;
 import com.classmonitor.ui.AppNavigator;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
@@ -16,16 +26,10 @@ import javafx.stage.FileChooser;
 
 
 import java.awt.*;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import javafx.concurrent.Task;
-import javafx.application.Platform;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ImportExportController {
 
@@ -36,16 +40,17 @@ public class ImportExportController {
 
     @FXML private ProgressBar progressBar;
     @FXML private Label progressText;
+    @FXML private Button cancelImportButton;
 
-    // Import uses your existing CSV service (kept)
-    private final CsvService csv = new CsvService();
+    // token of the running import, null when idle
+    private CancellationToken importCancel;
 
-    // Export uses StudentService so we can write to a user-chosen file location
-    private final StudentService studentService = AppNavigator.studentService();
+    // Import and export both go through the CSV service
+    private final CsvService csv = new CsvService(AppNavigator.studentRepository(), StudentRepository.DEFAULT_COMMIT_SIZE);
 
+    private final SnapshotService snapshots = new SnapshotService();
 
     // Tunables
-    private static final double AT_RISK_GPA = 2.50;
     private static final double TOP_GPA = 3.50;
 
     // Navigation
@@ -65,64 +70,94 @@ public class ImportExportController {
         File f = fc.showOpenDialog(statusLabel.getScene().getWindow());
         if (f == null) return;
 
+        // same file as an interrupted import: offer to continue after its last committed batch
+        ImportJob resume = csv.findResumableImport(f).orElse(null);
+        if (resume != null) {
+            ButtonType resumeBtn = new ButtonType("Resume");
+            ButtonType restartBtn = new ButtonType("Start over");
+            Alert ask = new Alert(Alert.AlertType.CONFIRMATION,
+                    "An earlier import of this file stopped after line " + resume.lastLine()
+                            + " (" + resume.successCount() + " rows imported).\nResume from there?",
+                    resumeBtn, restartBtn, ButtonType.CANCEL);
+            ask.setHeaderText(null);
+            ButtonType choice = ask.showAndWait().orElse(ButtonType.CANCEL);
+            if (choice == ButtonType.CANCEL) return;
+            if (choice == restartBtn) resume = null;
+        }
+        ImportJob job = resume;
+
         statusLabel.setText("Importing...");
         importLogArea.clear();
 
+        CancellationToken cancel = new CancellationToken();
+        importCancel = cancel;
+
         Task<ImportResult> task = new Task<>() {
             @Override
             protected ImportResult call() {
-                return csv.importStudents(f);
+                updateMessage("Starting import...");
+                updateProgress(-1, 1);
+                // Task coalesces these, so the FX thread gets at most one update per pulse
+                Consumer<ImportProgress> onProgress = p -> {
+                    if (p.fraction() >= 0) updateProgress(p.bytesRead(), p.totalBytes());
+                    updateMessage(p.summary());
+                };
+                return job == null
+                        ? csv.importStudents(f, onProgress, cancel)
+                        : csv.resumeImport(f, job, onProgress, cancel);
             }
         };
 
-        task.setOnSucceeded(e -> {
+        bindProgress(task);
+        cancelImportButton.setDisable(false);
+
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
             ImportResult r = task.getValue();
             importedLbl.setText(String.valueOf(r.getSuccessCount()));
             errorsLbl.setText(String.valueOf(r.getFailureCount()));
             importLogArea.setText(r.getMessage());
-            statusLabel.setText("Done");
+            statusLabel.setText((r.isCancelled() ? "Cancelled - " : "Done - ")
+                    + r.getInsertedCount() + " new, " + r.getUpdatedCount() + " updated, "
+                    + r.getUnchangedCount() + " unchanged - " + r.getTimings().summary());
+            importFinished();
         });
 
-        task.setOnFailed(e -> statusLabel.setText("Failed: " + task.getException().getMessage()));
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> {
+            statusLabel.setText("Failed: " + task.getException().getMessage());
+            importFinished();
+        });
 
         Thread th = new Thread(task, "import-task");
         th.setDaemon(true);
         th.start();
     }
 
+    /** Stops the running import at its next batch boundary; committed rows stay. */
     @FXML
-    public void exportAll() {
-        statusLabel.setText("Exporting all...");
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() {
-                csv.exportAllStudents();
-                return null;
-            }
-        };
-
-        task.setOnSucceeded(e -> statusLabel.setText("Done (saved to /data/students_all.csv)"));
-        task.setOnFailed(e -> statusLabel.setText("Export failed: " + task.getException().getMessage()));
-
-        Thread t = new Thread(task, "export-all");
-        t.setDaemon(true);
-        t.start();
+    public void cancelImport() {
+        if (importCancel == null) return;
+        importCancel.cancel();
+        cancelImportButton.setDisable(true);
+        statusLabel.setText("Cancelling...");
     }
 
+    private void importFinished() {
+        importCancel = null;
+        cancelImportButton.setDisable(true);
+    }
 
+    @FXML
+    public void exportAll() {
+        runExportTask("export-all", "Exporting all...", csv::exportAllStudents, false);
+    }
 
     @FXML
     public void exportTop() {
         File file = chooseSaveFile("Export Top Students", "students_top.csv");
         if (file == null) return;
 
-        runExportTask("export-top", "Exporting top...", () -> {
-            List<Student> students = studentService.findAll().stream()
-                    .filter(s -> s != null && s.gpa() >= TOP_GPA)
-                    .collect(Collectors.toList());
-            writeStudentsCsv(students, file);
-            onExportSuccess(file);
-        });
+        runExportTask("export-top", "Exporting top...",
+                () -> csv.exportStudents(file.toPath(), TOP_GPA, Double.POSITIVE_INFINITY), true);
     }
 
     @FXML
@@ -130,104 +165,125 @@ public class ImportExportController {
         File file = chooseSaveFile("Export At-Risk Students", "students_at_risk.csv");
         if (file == null) return;
 
-        runExportTask("export-risk", "Exporting at-risk...", () -> {
-            List<Student> students = studentService.findAll().stream()
-                    .filter(s -> s != null && s.gpa() < AT_RISK_GPA)
-                    .collect(Collectors.toList());
-            writeStudentsCsv(students, file);
-            onExportSuccess(file);
-        });
+        // the threshold configured in Settings
+        double below = AppNavigator.atRiskService().threshold();
+        runExportTask("export-risk", "Exporting at-risk...",
+                () -> csv.exportStudents(file.toPath(), Double.NEGATIVE_INFINITY, below), true);
+    }
+
+    @FXML
+    public void backupSnapshot() {
+        FileChooser fc = snapshotChooser("Save Snapshot");
+        fc.setInitialFileName("classmonitor" + SnapshotFormat.EXTENSION);
+        File file = fc.showSaveDialog(statusLabel.getScene().getWindow());
+        if (file == null) return;
+
+        runSnapshotTask("snapshot-backup", "Writing snapshot...", () -> snapshots.backup(file.toPath()), "Snapshot saved: ");
+    }
+
+    @FXML
+    public void restoreSnapshot() {
+        File file = snapshotChooser("Restore Snapshot").showOpenDialog(statusLabel.getScene().getWindow());
+        if (file == null) return;
+
+        Alert ask = new Alert(Alert.AlertType.CONFIRMATION,
+                "Replace all students, programmes and settings with the contents of " + file.getName() + "?",
+                ButtonType.OK, ButtonType.CANCEL);
+        ask.setHeaderText(null);
+        if (ask.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+
+        runSnapshotTask("snapshot-restore", "Restoring snapshot...", () -> {
+            SnapshotResult r = snapshots.restore(file.toPath());
+            AppNavigator.studentRepository().invalidateAll(); // the tables were replaced underneath it
+            AppNavigator.atRiskService().reload();
+            return r;
+        }, "Snapshot restored: ");
     }
 
     // ---------------- helpers ----------------
 
-    private File chooseSaveFile(String title, String defaultName) {
+    private FileChooser snapshotChooser(String title) {
         FileChooser fc = new FileChooser();
         fc.setTitle(title);
-        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
-        fc.setInitialFileName(defaultName);
-        return fc.showSaveDialog(statusLabel.getScene().getWindow());
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("ClassMonitor snapshots", "*" + SnapshotFormat.EXTENSION));
+        return fc;
     }
 
-    private void runExportTask(String threadName, String startingMessage, Runnable work) {
-        Platform.runLater(() -> statusLabel.setText(startingMessage));
+    private void runSnapshotTask(String threadName, String startingMessage, Supplier<SnapshotResult> work, String donePrefix) {
+        statusLabel.setText(startingMessage);
 
-        Task<Void> task = new Task<>() {
+        Task<SnapshotResult> task = new Task<>() {
             @Override
-            protected Void call() {
-                work.run();
-                return null;
+            protected SnapshotResult call() {
+                updateMessage(startingMessage);
+                updateProgress(-1, 1);
+                return work.get();
             }
         };
 
-        task.setOnFailed(e -> Platform.runLater(() ->
-                statusLabel.setText("Export failed: " + task.getException().getMessage())
-        ));
+        bindProgress(task);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e ->
+                statusLabel.setText(donePrefix + task.getValue().summary()));
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e ->
+                statusLabel.setText(task.getException().getMessage()));
 
         Thread th = new Thread(task, threadName);
         th.setDaemon(true);
         th.start();
-        Task<Void> task1 = new Task<>() {
-            @Override protected Void call() {
-                updateMessage("Exporting...");
-                updateProgress(0, 1);
+    }
+
+    private File chooseSaveFile(String title, String defaultName) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle(title);
+        fc.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Gzipped CSV files", "*.csv.gz"));
+        fc.setInitialFileName(defaultName);
+        File file = fc.showSaveDialog(statusLabel.getScene().getWindow());
+        // picking the gzip filter without typing the extension still means gzip
+        if (file != null && !file.getName().endsWith(".gz")
+                && fc.getSelectedExtensionFilter() != null
+                && fc.getSelectedExtensionFilter().getExtensions().contains("*.csv.gz")) {
+            file = new File(file.getParentFile(), file.getName() + ".gz");
+        }
+        return file;
+    }
 
-                // do work...
-                // updateProgress(0.5, 1);
+    private void runExportTask(String threadName, String startingMessage, Supplier<ExportResult> work, boolean open) {
+        statusLabel.setText(startingMessage);
 
-                updateProgress(1, 1);
-                updateMessage("Export complete ✅");
-                return null;
+        Task<ExportResult> task = new Task<>() {
+            @Override
+            protected ExportResult call() {
+                updateMessage(startingMessage);
+                updateProgress(-1, 1);
+                return work.get();
             }
         };
 
         bindProgress(task);
-        new Thread(task, "export-risk").start();
-
-
-    }
-
-    private void writeStudentsCsv(List<Student> students, File file) {
-        try (BufferedWriter out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            out.write("studentId,fullName,programme,level,gpa,email,phone,enrolledDate,status");
-            out.newLine();
-
-            for (Student s : students) {
-                out.write(csvCell(s.studentId())); out.write(',');
-                out.write(csvCell(s.fullName()));  out.write(',');
-                out.write(csvCell(s.programme())); out.write(',');
-                out.write(String.valueOf(s.level())); out.write(',');
-                out.write(String.valueOf(s.gpa())); out.write(',');
-                out.write(csvCell(s.email())); out.write(',');
-                out.write(csvCell(s.phone())); out.write(',');
-                out.write(csvCell(s.enrolledDate())); out.write(',');
-                out.write(csvCell(s.status()));
-                out.newLine();
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, e -> {
+            ExportResult r = task.getValue();
+            statusLabel.setText("Exported " + r.summary());
+            if (open) onExportSuccess(r.file().toFile());
+        });
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e ->
+                statusLabel.setText("Export failed: " + task.getException().getMessage()));
 
-    private String csvCell(String v) {
-        if (v == null) return "";
-        boolean needsQuotes = v.contains(",") || v.contains("\n") || v.contains("\r") || v.contains("\"");
-        String escaped = v.replace("\"", "\"\"");
-        return needsQuotes ? ("\"" + escaped + "\"") : escaped;
+        Thread th = new Thread(task, threadName);
+        th.setDaemon(true);
+        th.start();
     }
 
     private void onExportSuccess(File file) {
-        // 1) Show full path in status label
-        Platform.runLater(() -> statusLabel.setText("Exported to: " + file.getAbsolutePath()));
-
-        // 2) Auto-open the file
+        // 1) Auto-open the file
         try {
             if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.OPEN)) {
                 Desktop.getDesktop().open(file);
             }
         } catch (IOException ignored) {}
 
-        // 3) Open folder in Explorer (select file when possible)
+        // 2) Open folder in Explorer (select file when possible)
         try {
             if (Desktop.isDesktopSupported()) {
                 Desktop d = Desktop.getDesktop();
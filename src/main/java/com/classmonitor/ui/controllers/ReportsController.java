@@ -1,21 +1,22 @@
 package com.classmonitor.ui.controllers;
 
 import com.classmonitor.domain.Student;
-import com.classmonitor.repository.Db;
-import com.classmonitor.repository.SettingsDAO;
-import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.AtRiskService;
+import com.classmonitor.service.GpaBreakdown;
+import com.classmonitor.service.GpaStats;
+import com.classmonitor.service.ReportService;
 import com.classmonitor.ui.AppNavigator;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
 import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
-import java.lang.reflect.Method;
-import java.sql.Connection;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ReportsController {
 
@@ -60,9 +61,36 @@ public class ReportsController {
     // NEW: Pie chart
     @FXML private PieChart statusPie;
 
-    private final SqliteStudentRepository repo = new SqliteStudentRepository();
+    // GPA statistics per group, histogram of the selected one
+    @FXML private TableView<Map.Entry<String, GpaStats>> statsTable;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColGroup;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, Long> statColCount;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColMean;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColStdDev;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColMin;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColP10;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColMedian;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColP90;
+    @FXML private TableColumn<Map.Entry<String, GpaStats>, String> statColMax;
+    @FXML private ComboBox<Double> cmbBinWidth;
+    @FXML private BarChart<String, Number> statsHistogram;
+
     private double threshold = 2.50;
 
+    private final AtRiskService atRiskService = AppNavigator.atRiskService();
+
+    // cached per data generation, so coming back to this screen recomputes nothing unchanged
+    private final ReportService reports = AppNavigator.reportService();
+
+    // current at-risk rows, lowest GPA first; patched on threshold changes
+    private final List<Student> atRisk = new ArrayList<>();
+    private long atRiskGeneration; // data generation the rows were read at
+    private int total;
+
+    // held here because the service only keeps a weak reference
+    private final AtRiskService.Listener atRiskListener =
+            change -> Platform.runLater(() -> applyThresholdChange(change));
+
     @FXML
     public void initialize() {
         // placeholders
@@ -71,6 +99,7 @@ public class ReportsController {
         if (topTable != null) topTable.setPlaceholder(new Label("No students found."));
         if (activeTable != null) activeTable.setPlaceholder(new Label("No active students found."));
         if (inactiveTable != null) inactiveTable.setPlaceholder(new Label("No inactive students found."));
+        if (statsTable != null) statsTable.setPlaceholder(new Label("No students to summarise yet."));
 
         lblThreshold.setTooltip(new Tooltip("Configured in Settings → At-Risk GPA Threshold"));
         lblAtRisk.setTooltip(new Tooltip("Students with GPA below the configured threshold"));
@@ -79,17 +108,16 @@ public class ReportsController {
         setupTables();
         setupRowAndGpaStyling();
         loadReport();
+        atRiskService.addListener(atRiskListener);
     }
 
     private void loadThreshold() {
         try {
-            Connection conn = Db.get();
-            threshold = new SettingsDAO(conn).getAtRiskThreshold();
-            lblThreshold.setText(String.format(Locale.US, "%.2f", threshold));
+            threshold = atRiskService.threshold();
         } catch (Exception e) {
             threshold = 2.50;
-            lblThreshold.setText("2.50");
         }
+        lblThreshold.setText(String.format(Locale.US, "%.2f", threshold));
     }
 
     private void setupTables() {
@@ -126,6 +154,28 @@ public class ReportsController {
             inColProgramme.setCellValueFactory(d -> new SimpleStringProperty(d.getValue().programme()));
             inColGpa.setCellValueFactory(d -> new SimpleObjectProperty<>(d.getValue().gpa()));
         }
+
+        // GPA statistics
+        if (statsTable != null) {
+            statColGroup.setCellValueFactory(d -> new SimpleStringProperty(d.getValue().getKey()));
+            statColCount.setCellValueFactory(d -> new SimpleObjectProperty<>(d.getValue().getValue().count()));
+            statColMean.setCellValueFactory(d -> gpaText(d.getValue().getValue().mean()));
+            statColStdDev.setCellValueFactory(d -> gpaText(d.getValue().getValue().stdDev()));
+            statColMin.setCellValueFactory(d -> gpaText(d.getValue().getValue().min()));
+            statColP10.setCellValueFactory(d -> gpaText(d.getValue().getValue().p10()));
+            statColMedian.setCellValueFactory(d -> gpaText(d.getValue().getValue().median()));
+            statColP90.setCellValueFactory(d -> gpaText(d.getValue().getValue().p90()));
+            statColMax.setCellValueFactory(d -> gpaText(d.getValue().getValue().max()));
+
+            cmbBinWidth.setItems(FXCollections.observableArrayList(0.1, 0.25, 0.5, 1.0));
+            cmbBinWidth.setValue(0.25);
+            cmbBinWidth.valueProperty().addListener((obs, o, n) -> showHistogram());
+            statsTable.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> showHistogram());
+        }
+    }
+
+    private static SimpleStringProperty gpaText(double v) {
+        return new SimpleStringProperty(Double.isNaN(v) ? "-" : String.format(Locale.US, "%.2f", v));
     }
 
     private void setupRowAndGpaStyling() {
@@ -153,49 +203,35 @@ public class ReportsController {
     }
 
     private void loadReport() {
-        List<Student> all = repo.findAll();
-
-        // at-risk
-        List<Student> atRisk = all.stream()
-                .filter(s -> s.gpa() < threshold)
-                .sorted(Comparator.comparingDouble(Student::gpa))
-                .toList();
-
-        lblTotal.setText(String.valueOf(all.size()));
-        lblAtRisk.setText(String.valueOf(atRisk.size()));
-
-        double percent = all.isEmpty() ? 0 : (atRisk.size() * 100.0 / all.size());
-        lblPercent.setText(String.format(Locale.US, "%.1f%%", percent));
-
-        riskTable.setItems(FXCollections.observableArrayList(atRisk));
-
-        // programme breakdown (at-risk)
-        Map<String, Long> byProgramme = atRisk.stream()
-                .collect(Collectors.groupingBy(Student::programme, Collectors.counting()));
-        programmeTable.setItems(FXCollections.observableArrayList(byProgramme.entrySet()));
+        // at-risk (lowest GPA first), a range scan on the GPA index
+        loadAtRisk(threshold);
+        showAtRisk();
 
         // top performers (top 10)
         if (topTable != null) {
-            List<Student> top = all.stream()
-                    .sorted(Comparator.comparingDouble(Student::gpa).reversed())
-                    .limit(10)
-                    .toList();
-            topTable.setItems(FXCollections.observableArrayList(top));
+            topTable.setItems(FXCollections.observableArrayList(reports.topPerformers(null, null)));
         }
 
         // active/inactive lists
-        List<Student> active = new ArrayList<>();
-        List<Student> inactive = new ArrayList<>();
-
-        for (Student s : all) {
-            String status = safeStatusOf(s);
-            if ("inactive".equalsIgnoreCase(status)) inactive.add(s);
-            else active.add(s);
-        }
+        List<Student> active = reports.activeStudents();
+        List<Student> inactive = reports.inactiveStudents();
 
         if (activeTable != null) activeTable.setItems(FXCollections.observableArrayList(active));
         if (inactiveTable != null) inactiveTable.setItems(FXCollections.observableArrayList(inactive));
 
+        // GPA statistics: all students, then programmes, levels and programme/level groups
+        if (statsTable != null) {
+            GpaBreakdown stats = reports.gpaStats();
+            List<Map.Entry<String, GpaStats>> rows = new ArrayList<>();
+            rows.add(Map.entry("All students", stats.overall()));
+            stats.byProgramme().forEach((p, s) -> rows.add(Map.entry(p, s)));
+            stats.byLevel().forEach((lv, s) -> rows.add(Map.entry("Level " + lv, s)));
+            stats.byProgrammeAndLevel().forEach((p, levels) ->
+                    levels.forEach((lv, s) -> rows.add(Map.entry(p + " / " + lv, s))));
+            statsTable.setItems(FXCollections.observableArrayList(rows));
+            statsTable.getSelectionModel().selectFirst();
+        }
+
         // pie chart
         if (statusPie != null) {
             ObservableList<PieChart.Data> pie = FXCollections.observableArrayList(
@@ -205,40 +241,63 @@ public class ReportsController {
             statusPie.setData(pie);
             statusPie.setLegendVisible(true);
         }
+    }
 
-        riskTable.refresh();
+    private void showHistogram() {
+        Map.Entry<String, GpaStats> row = statsTable.getSelectionModel().getSelectedItem();
+        Double width = cmbBinWidth.getValue();
+        statsHistogram.getData().clear();
+        if (row == null || width == null) return;
+
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName(row.getKey());
+        row.getValue().histogram(width).forEach((from, count) ->
+                series.getData().add(new XYChart.Data<>(String.format(Locale.US, "%.2f", from), count)));
+        statsHistogram.getData().add(series);
+    }
+
+    private void loadAtRisk(double below) {
+        atRiskGeneration = reports.generation(); // before the reads, so a write during them is noticed
+        atRisk.clear();
+        atRisk.addAll(reports.atRisk(below));
+        total = reports.studentCount();
     }
 
     /**
-     * Reads student status without forcing your Student class to have a specific method at compile time.
-     * Supports:
-     *  - String status()
-     *  - boolean isActive()
-     *  - Boolean active()
+     * The rows between the old and new threshold sit at the end of the sorted list, so a raise
+     * appends them and a cut drops the tail at or above the new threshold; nothing else is re-queried.
      */
-    private String safeStatusOf(Student s) {
-        try {
-            // try status(): String
-            Method m = s.getClass().getMethod("status");
-            Object v = m.invoke(s);
-            return v == null ? "active" : v.toString();
-        } catch (Exception ignored) {}
+    private void applyThresholdChange(AtRiskService.Change change) {
+        if (change.oldThreshold() != threshold || reports.generation() != atRiskGeneration) {
+            // this list was not built at the old threshold, or students changed since: query the new one
+            loadAtRisk(change.newThreshold());
+        } else if (change.newThreshold() > threshold) {
+            atRisk.addAll(change.entered());
+        } else {
+            while (!atRisk.isEmpty() && atRisk.get(atRisk.size() - 1).gpa() >= change.newThreshold()) {
+                atRisk.remove(atRisk.size() - 1);
+            }
+        }
+        threshold = change.newThreshold();
+        lblThreshold.setText(String.format(Locale.US, "%.2f", threshold));
+        showAtRisk();
+    }
 
-        try {
-            // try isActive(): boolean
-            Method m = s.getClass().getMethod("isActive");
-            Object v = m.invoke(s);
-            if (v instanceof Boolean b) return b ? "active" : "inactive";
-        } catch (Exception ignored) {}
+    private void showAtRisk() {
+        lblTotal.setText(String.valueOf(total));
+        lblAtRisk.setText(String.valueOf(atRisk.size()));
 
-        try {
-            // try active(): Boolean
-            Method m = s.getClass().getMethod("active");
-            Object v = m.invoke(s);
-            if (v instanceof Boolean b) return b ? "active" : "inactive";
-        } catch (Exception ignored) {}
+        double percent = total == 0 ? 0 : (atRisk.size() * 100.0 / total);
+        lblPercent.setText(String.format(Locale.US, "%.1f%%", percent));
+
+        riskTable.setItems(FXCollections.observableArrayList(atRisk));
 
-        return "active"; // fallback
+        // programme breakdown (at-risk)
+        Map<String, Long> byProgramme = new TreeMap<>();
+        for (Student s : atRisk) byProgramme.merge(s.programme(), 1L, Long::sum);
+        programmeTable.setItems(FXCollections.observableArrayList(byProgramme.entrySet()));
+
+        riskTable.refresh();
     }
 
     // NAVIGATION (unchanged)
@@ -1,16 +1,15 @@
 package com.classmonitor.ui.controllers;
 
-import com.classmonitor.repository.Db;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.ProgrammeDAO;
 import com.classmonitor.repository.SettingsDAO;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
+import com.classmonitor.ui.AppNavigator;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.util.ArrayList;
 import java.util.Locale;
 
 public class SettingsController {
@@ -26,8 +25,11 @@ public class SettingsController {
     @FXML private TextField txtProgramme;
     @FXML private Label lblProgMsg;
 
-    private SettingsDAO settingsDAO;
-    private Connection conn;
+    // ===== Maintenance =====
+    @FXML private Label lblMaintMsg;
+
+    // every read and write takes a connection lease, so nothing lands in an import's open batch
+    private final ProgrammeDAO programmeDAO = new ProgrammeDAO();
 
     // Optional callback (Dashboard can hook this)
     public static Runnable onSettingsChanged = null;
@@ -35,13 +37,9 @@ public class SettingsController {
     @FXML
     public void initialize() {
         try {
-            conn = Db.get();                 // ✅ your Db.java uses Db.get()
-            settingsDAO = new SettingsDAO(conn);
-
             setupSpinners();
             updateHint();
 
-            ensureProgrammesTable();
             loadProgrammes();
 
             lvProgrammes.getSelectionModel().selectedItemProperty().addListener((obs, o, v) -> {
@@ -57,10 +55,14 @@ public class SettingsController {
     // GPA THRESHOLDS
     // ==============================
 
-    private void setupSpinners() {
-        double atRisk = settingsDAO.getAtRiskThreshold();
-        double avg    = settingsDAO.getAverageThreshold();
-        double top    = settingsDAO.getTopThreshold();
+    private void setupSpinners() throws Exception {
+        double atRisk, avg, top;
+        try (ConnectionManager.Lease lease = ConnectionManager.get().read()) {
+            SettingsDAO settingsDAO = new SettingsDAO(lease.connection());
+            atRisk = settingsDAO.getAtRiskThreshold();
+            avg    = settingsDAO.getAverageThreshold();
+            top    = settingsDAO.getTopThreshold();
+        }
 
         spAtRisk.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(0.00, 5.00, atRisk, 0.10));
         spAverage.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(0.00, 5.00, avg, 0.10));
@@ -101,9 +103,11 @@ public class SettingsController {
                 throw new IllegalArgumentException("Thresholds must follow: At-Risk < Average < Top");
             }
 
-            settingsDAO.setAtRiskThreshold(round2(ar));
-            settingsDAO.setAverageThreshold(round2(av));
-            settingsDAO.setTopThreshold(round2(tp));
+            // one transaction for all three; re-evaluates open at-risk lists once it has committed
+            AppNavigator.atRiskService().setThreshold(round2(ar), settingsDAO -> {
+                settingsDAO.setAverageThreshold(round2(av));
+                settingsDAO.setTopThreshold(round2(tp));
+            });
 
             if (onSettingsChanged != null) onSettingsChanged.run();
 
@@ -128,29 +132,12 @@ public class SettingsController {
     }
 
     // ==============================
-    // PROGRAMME MANAGEMENT (SQLite)
+    // PROGRAMME MANAGEMENT
     // ==============================
 
-    private void ensureProgrammesTable() throws Exception {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS programmes (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                name TEXT NOT NULL UNIQUE
-            )
-            """;
-        try (var st = conn.createStatement()) {
-            st.execute(sql);
-        }
-    }
-
     private void loadProgrammes() {
         try {
-            ArrayList<String> list = new ArrayList<>();
-            try (PreparedStatement ps = conn.prepareStatement("SELECT name FROM programmes ORDER BY name");
-                 ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) list.add(rs.getString(1));
-            }
-            lvProgrammes.setItems(FXCollections.observableArrayList(list));
+            lvProgrammes.setItems(FXCollections.observableArrayList(programmeDAO.getAllProgrammes()));
             lblProgMsg.setText("");
         } catch (Exception e) {
             showError("Failed to load programmes", e.getMessage());
@@ -162,13 +149,8 @@ public class SettingsController {
         String name = safeProgrammeName();
         if (name == null) return;
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT OR IGNORE INTO programmes(name) VALUES(?)"
-        )) {
-            ps.setString(1, name);
-            int changed = ps.executeUpdate();
-
-            if (changed == 0) {
+        try {
+            if (!programmeDAO.addProgramme(name)) {
                 lblProgMsg.setText("Programme already exists: " + name);
             } else {
                 lblProgMsg.setText("Added: " + name);
@@ -199,14 +181,8 @@ public class SettingsController {
             return;
         }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE programmes SET name = ? WHERE name = ?"
-        )) {
-            ps.setString(1, newName);
-            ps.setString(2, selected);
-            int updated = ps.executeUpdate();
-
-            if (updated == 0) {
+        try {
+            if (!programmeDAO.renameProgramme(selected, newName)) {
                 lblProgMsg.setText("Rename failed (programme not found).");
             } else {
                 lblProgMsg.setText("Renamed to: " + newName);
@@ -237,11 +213,8 @@ public class SettingsController {
 
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
 
-        try (PreparedStatement ps = conn.prepareStatement(
-                "DELETE FROM programmes WHERE name = ?"
-        )) {
-            ps.setString(1, selected);
-            ps.executeUpdate();
+        try {
+            programmeDAO.deleteProgramme(selected);
 
             lblProgMsg.setText("Deleted: " + selected);
             loadProgrammes();
@@ -261,6 +234,21 @@ public class SettingsController {
         return name;
     }
 
+    // ==============================
+    // MAINTENANCE
+    // ==============================
+
+    @FXML
+    private void onRebuildStats() {
+        try {
+            int groups = new SqliteStatsRepository().rebuildAggregates();
+            lblMaintMsg.setText("Statistics rebuilt (" + groups + " programme/level/status groups).");
+            if (onSettingsChanged != null) onSettingsChanged.run();
+        } catch (Exception e) {
+            showError("Could not rebuild statistics", e.getMessage());
+        }
+    }
+
     // ==============================
     // Close + Alerts
     // ==============================
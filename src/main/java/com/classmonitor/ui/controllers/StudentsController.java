@@ -2,6 +2,9 @@ package com.classmonitor.ui.controllers;
 
 import com.classmonitor.ValidationException;
 import com.classmonitor.domain.Student;
+import com.classmonitor.repository.PageCursor;
+import com.classmonitor.repository.StudentPage;
+import com.classmonitor.repository.StudentSort;
 import com.classmonitor.repository.sqlite.SqliteStudentRepository;
 import com.classmonitor.service.StudentService;
 import com.classmonitor.ui.AppNavigator;
@@ -38,6 +41,10 @@ public class StudentsController {
     @FXML private TextField phoneField;
     @FXML private ComboBox<String> statusCombo;
 
+    // paging footer
+    @FXML private Label pageLabel;
+    @FXML private Button loadMoreButton;
+
     private final SqliteStudentRepository repo = new SqliteStudentRepository(); // ✅ no-arg constructor
     private final StudentService service = AppNavigator.studentService();
 
@@ -45,6 +52,11 @@ public class StudentsController {
 
     private double atRiskThreshold = 2.50;
 
+    // Rows fetched per "Load more" (keyset paging, so deep pages stay cheap)
+    private static final int PAGE_SIZE = 200;
+    private PageCursor nextCursor;
+    private long totalCount;
+
     @FXML
     public void initialize() {
         // table bindings
@@ -171,12 +183,35 @@ public class StudentsController {
     @FXML
     private void refresh() {
         rows.clear();
+        nextCursor = null;
 
-        var list = (searchField == null || searchField.getText().isBlank())
-                ? service.findAll()
-                : service.search(searchField.getText().trim());
+        if (searchField == null || searchField.getText().isBlank()) {
+            totalCount = service.count();
+            appendPage(service.firstPage(PAGE_SIZE, StudentSort.NAME));
+            return;
+        }
 
+        var list = service.search(searchField.getText().trim());
         for (Student s : list) rows.add(toRow(s));
+        totalCount = list.size();
+        updatePager();
+    }
+
+    @FXML
+    private void loadMore() {
+        if (nextCursor == null) return;
+        appendPage(service.nextPage(nextCursor, PAGE_SIZE, StudentSort.NAME));
+    }
+
+    private void appendPage(StudentPage page) {
+        for (Student s : page.rows()) rows.add(toRow(s));
+        nextCursor = page.next();
+        updatePager();
+    }
+
+    private void updatePager() {
+        if (pageLabel != null) pageLabel.setText("Showing " + rows.size() + " of " + totalCount);
+        if (loadMoreButton != null) loadMoreButton.setDisable(nextCursor == null);
     }
 
 
@@ -0,0 +1,93 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.SettingsDAO;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.AtRiskService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class AtRiskServiceTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void thresholdChangeReportsOnlyTheBandBetweenThresholds() throws Exception {
+        Path db = Files.createTempFile("classmonitor-atrisk", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        SqliteStudentRepository repo = new SqliteStudentRepository(manager);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            students.add(new Student(String.format("AR%04d", i), "Name", "IT", 100, i / 10.0,
+                    "", "", "2026-02-02", "Active"));
+        }
+        repo.upsertAll(students);
+
+        AtRiskService service = new AtRiskService(repo, manager);
+        Assertions.assertEquals(2.0, service.threshold(), "default from the settings table");
+        List<Student> atRisk = service.atRisk();
+        Assertions.assertEquals(students.subList(0, 20), atRisk);
+
+        List<AtRiskService.Change> heard = new ArrayList<>();
+        AtRiskService.Listener listener = heard::add;
+        service.addListener(listener);
+
+        AtRiskService.Change up = service.setThreshold(2.5);
+        Assertions.assertEquals(students.subList(20, 25), up.entered());
+        Assertions.assertTrue(up.left().isEmpty());
+        Assertions.assertEquals(List.of(up), heard);
+        try (ConnectionManager.Lease lease = manager.read()) {
+            Assertions.assertEquals(2.5, new SettingsDAO(lease.connection()).getAtRiskThreshold());
+        }
+
+        // applying the deltas to the list gives the same answer as a fresh query
+        atRisk.addAll(up.entered());
+        AtRiskService.Change down = service.setThreshold(1.05);
+        Assertions.assertEquals(students.subList(11, 25), down.left());
+        atRisk.removeIf(s -> s.gpa() >= down.newThreshold());
+        Assertions.assertEquals(service.atRisk(), atRisk);
+
+        service.removeListener(listener);
+        service.setThreshold(3.0);
+        Assertions.assertEquals(2, heard.size());
+    }
+
+    @Test
+    void thresholdsSavedTogetherRollBackTogether() throws Exception {
+        Path db = Files.createTempFile("classmonitor-atrisk-save", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        AtRiskService service = new AtRiskService(new SqliteStudentRepository(manager), manager);
+        List<AtRiskService.Change> heard = new ArrayList<>();
+        AtRiskService.Listener listener = heard::add;
+        service.addListener(listener);
+
+        service.setThreshold(1.5, settings -> {
+            settings.setAverageThreshold(2.5);
+            settings.setTopThreshold(3.25);
+        });
+        Assertions.assertEquals(1, heard.size());
+
+        Assertions.assertThrows(RuntimeException.class, () -> service.setThreshold(1.0, settings -> {
+            settings.setAverageThreshold(2.0);
+            throw new IllegalStateException("disk full");
+        }));
+        Assertions.assertEquals(1.5, service.threshold());
+        Assertions.assertEquals(1, heard.size(), "nothing committed, nothing to hear");
+        try (ConnectionManager.Lease lease = manager.read()) {
+            SettingsDAO settings = new SettingsDAO(lease.connection());
+            Assertions.assertEquals(1.5, settings.getAtRiskThreshold());
+            Assertions.assertEquals(2.5, settings.getAverageThreshold());
+            Assertions.assertEquals(3.25, settings.getTopThreshold());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.UpsertCounts;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+class CachingStudentRepositoryTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void writesGoThroughAndReadsHitTheCache() throws Exception {
+        Path file = Files.createTempFile("classmonitor-cache", ".db");
+        SqliteStudentRepository sqlite = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + file));
+        CachingStudentRepository repo = new CachingStudentRepository(sqlite, 2);
+
+        Assertions.assertFalse(repo.existsById("CA01")); // miss, cached as absent
+        repo.add(student("CA01", 3.0));
+        Assertions.assertTrue(repo.existsById("CA01"));  // hit, written through
+        Assertions.assertTrue(sqlite.existsById("CA01"));
+
+        repo.update(student("CA01", 3.4));
+        Assertions.assertEquals(3.4, repo.findById("CA01").orElseThrow().gpa());
+        Assertions.assertEquals(1, repo.findAll().size());
+        Assertions.assertEquals(1, repo.findAll().size());
+
+        repo.delete("CA01");
+        Assertions.assertTrue(repo.findById("CA01").isEmpty());
+        Assertions.assertTrue(repo.findAll().isEmpty());
+
+        repo.upsertAll(List.of(student("CA02", 2.0), student("CA03", 2.5), student("CA04", 1.0)));
+        repo.findById("CA02");
+        repo.findById("CA03");
+        repo.findById("CA04");
+        Assertions.assertEquals(2, repo.size());
+        Assertions.assertTrue(repo.evictionCount() >= 1);
+
+        Assertions.assertEquals(3, repo.hitCount());
+        Assertions.assertEquals(7, repo.missCount());
+    }
+
+    @Test
+    void bulkUpsertsReadTheInputOnceAndReportStoredChangedRows() throws Exception {
+        Path file = Files.createTempFile("classmonitor-cache", ".db");
+        CachingStudentRepository repo = new CachingStudentRepository(new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + file)));
+        List<Student> upserted = new ArrayList<>();
+        repo.addListener(new CachingStudentRepository.Listener() {
+            @Override public void upserted(Student s) { upserted.add(s); }
+            @Override public void deleted(String studentId) {}
+            @Override public void reset() { Assertions.fail("unexpected reset"); }
+        });
+
+        // a one-shot source, like a stream adapter
+        Iterator<Student> once = List.of(student("CB01", 2.0), student("CB02", 3.0)).iterator();
+        Assertions.assertEquals(2, repo.upsertAll(() -> once));
+        Assertions.assertEquals(List.of("CB01", "CB02"), upserted.stream().map(Student::studentId).toList());
+
+        // the stored date_added is kept on conflict, and listeners see the stored row
+        upserted.clear();
+        Student later = new Student("CB01", "Name CB01", "IT", 100, 2.4, "CB01@x.com", "0123456789",
+                "2027-01-01", "Active");
+        UpsertCounts counts = repo.upsertChanged(List.of(later, student("CB02", 3.0)));
+        Assertions.assertEquals(new UpsertCounts(0, 1, 1), counts);
+        Assertions.assertEquals(1, upserted.size()); // CB02 was unchanged
+        Assertions.assertEquals(2.4, upserted.get(0).gpa());
+        Assertions.assertEquals("2026-02-02", upserted.get(0).dateAddedIso());
+    }
+
+    private static Student student(String id, double gpa) {
+        return new Student(id, "Name " + id, "IT", 100, gpa, id + "@x.com", "0123456789", "2026-02-02", "Active");
+    }
+}
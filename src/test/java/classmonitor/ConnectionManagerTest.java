@@ -0,0 +1,103 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.StatementCache;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ConnectionManagerTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void reusesOnePhysicalConnection() throws Exception {
+        Path file = Files.createTempFile("classmonitor-cm", ".db");
+        ConnectionManager cm = ConnectionManager.configure("jdbc:sqlite:" + file);
+        SqliteStudentRepository repo = new SqliteStudentRepository(cm);
+
+        repo.add(new Student("CM0001", "Lease User", "IT", 100, 3.0,
+                "l@l.com", "0123456789", "2026-02-02", "Active"));
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(repo.existsById("CM0001"));
+        }
+
+        Assertions.assertEquals(2, cm.openCount()); // writer + one pooled reader
+        Assertions.assertEquals(1, cm.leaseCount());
+        Assertions.assertEquals(10, cm.readLeaseCount());
+        Assertions.assertEquals(2, cm.statementMissCount()); // insert + exists
+        Assertions.assertEquals(9, cm.statementHitCount());
+        try (ConnectionManager.Lease lease = cm.write()) {
+            Assertions.assertFalse(lease.connection().isClosed());
+        }
+        Assertions.assertEquals(2, cm.openCount());
+    }
+
+    @Test
+    void readsDoNotWaitForOpenWriteTransaction() throws Exception {
+        Path file = Files.createTempFile("classmonitor-wal", ".db");
+        ConnectionManager cm = ConnectionManager.configure("jdbc:sqlite:" + file);
+        SqliteStudentRepository repo = new SqliteStudentRepository(cm);
+        repo.add(new Student("WAL0001", "Committed", "IT", 100, 3.0,
+                "w@w.com", "0123456789", "2026-02-02", "Active"));
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try (ConnectionManager.Lease lease = cm.write()) {
+                lease.connection().setAutoCommit(false);
+                lease.connection().createStatement().executeUpdate(
+                        "UPDATE students SET full_name = 'Uncommitted' WHERE student_id = 'WAL0001'");
+                writing.countDown();
+                done.await(5, TimeUnit.SECONDS);
+                lease.connection().rollback();
+                lease.connection().setAutoCommit(true);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        Assertions.assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        try (ConnectionManager.Lease lease = cm.read();
+             ResultSet rs = lease.prepare("SELECT full_name FROM students WHERE student_id = 'WAL0001'").executeQuery()) {
+            Assertions.assertTrue(rs.next());
+            Assertions.assertEquals("Committed", rs.getString(1));
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    void statementCacheEvictsLeastRecentlyUsed() throws Exception {
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite::memory:");
+             StatementCache cache = new StatementCache(c, 2)) {
+
+            PreparedStatement one = cache.prepare("SELECT 1");
+            cache.prepare("SELECT 2");
+            Assertions.assertSame(one, cache.prepare("SELECT 1")); // hit, now most recent
+            cache.prepare("SELECT 3");                              // evicts SELECT 2
+
+            Assertions.assertEquals(2, cache.size());
+            Assertions.assertEquals(1, cache.evictionCount());
+            Assertions.assertFalse(one.isClosed());
+            Assertions.assertEquals(1, cache.hitCount());
+            Assertions.assertEquals(3, cache.missCount());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.CsvService;
+import com.classmonitor.service.ExportResult;
+import com.classmonitor.service.ImportResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+class CsvExportTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void exportCountsRowsAndBytesAndQuotes() throws Exception {
+        SqliteStudentRepository repo = newRepo();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            students.add(new Student(String.format("EX%04d", i), "Name " + (char) ('a' + i % 26), "IT", 100,
+                    i / 20.0, "", "", "2026-01-01", "Active"));
+        }
+        students.add(new Student("EX9999", "Smith, \"Jo\"", "IT", 400, 3.9, "", "", "2026-01-01", "Active"));
+        repo.upsertAll(students);
+
+        Path out = Files.createTempDirectory("export").resolve("all.csv");
+        ExportResult r = new CsvService(repo, 100).exportStudents(out);
+
+        Assertions.assertEquals(51, r.rows());
+        Assertions.assertEquals(Files.size(out), r.bytes());
+        Assertions.assertFalse(r.gzip());
+        List<String> lines = Files.readAllLines(out);
+        Assertions.assertEquals("studentId,fullName,programme,level,gpa,email,phone,date,status", lines.get(0));
+        Assertions.assertEquals("EX0000,Name a,IT,100,0.0,,,2026-01-01,Active", lines.get(1));
+        Assertions.assertEquals("EX9999,\"Smith, \"\"Jo\"\"\",IT,400,3.9,,,2026-01-01,Active", lines.get(51));
+
+        // half-open GPA range, ordered by GPA
+        Path top = out.resolveSibling("top.csv");
+        ExportResult t = new CsvService(repo, 100).exportStudents(top, 2.0, Double.POSITIVE_INFINITY);
+        Assertions.assertEquals(11, t.rows());
+        Assertions.assertTrue(Files.readAllLines(top).get(1).startsWith("EX0040,"));
+    }
+
+    @Test
+    void gzipExportRoundTripsThroughImport() throws Exception {
+        SqliteStudentRepository repo = newRepo();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            students.add(new Student(String.format("GZ%05d", i), "Name Q", "IT", 200, (i % 40) / 10.0,
+                    "a@b.com", "0123456789", "2026-01-01", "Active"));
+        }
+        repo.upsertAll(students);
+
+        Path out = Files.createTempDirectory("export").resolve("all.csv.gz");
+        ExportResult r = new CsvService(repo, 100).exportStudents(out);
+        Assertions.assertTrue(r.gzip());
+        Assertions.assertEquals(3000, r.rows());
+        Assertions.assertEquals(Files.size(out), r.bytes());
+
+        Path plain = out.resolveSibling("all.csv");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(out))) {
+            Files.writeString(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertTrue(r.bytes() < Files.size(plain));
+
+        // the export is valid import input, and nothing in it differs from what is stored
+        ImportResult back = new CsvService(repo, 500, 2, Files.createTempDirectory("errors")).importStudents(plain.toFile());
+        Assertions.assertEquals(3000, back.getSuccessCount());
+        Assertions.assertEquals(0, back.getFailureCount());
+        Assertions.assertEquals(3000, back.getUnchangedCount());
+    }
+
+    @Test
+    void failedExportLeavesNoFile() throws Exception {
+        // the cursor dies after some rows are already written, like a database error would
+        StudentValidationTest.FakeRepo repo = new StudentValidationTest.FakeRepo() {
+            @Override
+            public long forEach(Consumer<? super Student> action) {
+                for (int i = 0; i < 5000; i++) {
+                    action.accept(new Student(String.format("FX%05d", i), "Name", "IT", 100, 2.0,
+                            "", "", "2026-01-01", "Active"));
+                }
+                throw new RuntimeException("forEach failed: database is locked");
+            }
+        };
+        Path out = Files.createTempDirectory("export").resolve("all.csv");
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+                () -> new CsvService(repo, 100).exportStudents(out));
+        Assertions.assertEquals("forEach failed: database is locked", e.getMessage());
+        Assertions.assertFalse(Files.exists(out));
+
+        Path missingDir = out.resolveSibling("missing").resolve("all.csv");
+        e = Assertions.assertThrows(RuntimeException.class, () -> new CsvService(repo, 100).exportStudents(missingDir));
+        Assertions.assertTrue(e.getMessage().startsWith("Export failed: "), e.getMessage());
+        Assertions.assertFalse(Files.exists(missingDir));
+    }
+
+    private static SqliteStudentRepository newRepo() throws Exception {
+        Path db = Files.createTempFile("classmonitor-export", ".db");
+        return new SqliteStudentRepository(ConnectionManager.configure("jdbc:sqlite:" + db));
+    }
+}
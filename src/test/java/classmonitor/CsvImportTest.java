@@ -0,0 +1,400 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.ImportJob;
+import com.classmonitor.repository.ImportJobRepository;
+import com.classmonitor.repository.StudentRepository;
+import com.classmonitor.repository.UpsertCounts;
+import com.classmonitor.repository.sqlite.SqliteImportJobRepository;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.CancellationToken;
+import com.classmonitor.service.CsvService;
+import com.classmonitor.service.ImportProgress;
+import com.classmonitor.service.ImportResult;
+import com.classmonitor.service.MappedCsvFile;
+import com.classmonitor.service.ReportService;
+import com.classmonitor.service.StudentSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+class CsvImportTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void pipelineKeepsFileOrderAndRowNumbers() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+
+        StringBuilder csv = new StringBuilder("Student ID,Full Name,Programme,Level,GPA,Email,Phone,Date,Status\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append(String.format(Locale.US, "IM%05d,Name %s,IT,200,%.2f,a@b.com,0123456789,2026-01-01,Active%n",
+                    i % 2500, letters(i), (i % 40) / 10.0));
+        }
+        csv.append("BAD1,Bad Gpa,IT,200,x.y,,,,\n"); // line 3002
+        Path file = Files.createTempFile("students", ".csv");
+        Files.writeString(file, csv);
+
+        // small batches and several workers so chunks really finish out of order
+        ImportResult r = new CsvService(repo, 100, 4, Files.createTempDirectory("errors")).importStudents(file.toFile());
+
+        Assertions.assertEquals(3000, r.getSuccessCount());
+        Assertions.assertEquals(1, r.getFailureCount());
+        Assertions.assertTrue(r.getMessage().startsWith("Row 3002: GPA must be a number"), r.getMessage());
+        Assertions.assertEquals(4, r.getTimings().workers());
+        Assertions.assertEquals(2500, repo.count());
+
+        // IM00000 appears at i=0 and i=2500: the later row must win
+        Assertions.assertEquals("Name " + letters(2500), repo.findById("IM00000").orElseThrow().fullName());
+    }
+
+    @Test
+    void mappedImportMatchesStreamingImport() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-mapped", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+
+        String csv = "\uFEFFStudent ID;Full Name;Programme;Level;GPA\r\n"
+                + "MP0001;\"Mensah; Alice\";IT;100;3.1\r\n"
+                + "MP0002;Kwame;IT;200;abc\r\n"
+                + "MP0003;\"Ama \"\"AJ\"\" Owusu\";Maths;300;2.4";
+        Path file = Files.createTempFile("students-mapped", ".csv");
+        Files.writeString(file, csv);
+
+        CsvService service = new CsvService(repo, 100, 2, Files.createTempDirectory("errors"));
+        ImportResult mapped = service.importStudentsMapped(file.toFile());
+        ImportResult streamed = service.importStudents(file.toFile());
+
+        Assertions.assertEquals(2, mapped.getSuccessCount());
+        Assertions.assertEquals(1, mapped.getFailureCount());
+        Assertions.assertEquals(streamed.getErrorCounts(), mapped.getErrorCounts());
+        Assertions.assertEquals(Files.readAllLines(streamed.getErrorReport()), Files.readAllLines(mapped.getErrorReport()));
+        Assertions.assertTrue(mapped.getMessage().startsWith("Row 3: GPA must be a number"), mapped.getMessage());
+        Assertions.assertEquals("Mensah; Alice", repo.findById("MP0001").orElseThrow().fullName());
+        Assertions.assertEquals("Ama \"AJ\" Owusu", repo.findById("MP0003").orElseThrow().fullName());
+    }
+
+    @Test
+    void strayQuoteDoesNotSplitMappedSlicesInsideQuotedFields() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-quotes", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+
+        // a quote inside an unquoted field is plain text; quoted fields with line breaks follow,
+        // and the file spans several 1 MB slices
+        StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa\n");
+        csv.append("SQ00000,O\"Brien,IT,100,3.0\n");
+        int records = 1;
+        for (int i = 1; i < 80_000; i++, records++) {
+            String name = i % 100 == 0 ? "\"Name\nSplit " + letters(i) + "\"" : "Name " + letters(i);
+            csv.append(String.format(Locale.US, "SQ%05d,%s,IT,100,%.1f%n", i, name, (i % 40) / 10.0));
+        }
+        Path file = Files.createTempFile("students-quotes", ".csv");
+        Files.writeString(file, csv);
+        Assertions.assertTrue(Files.size(file) > 2 * MappedCsvFile.DEFAULT_CHUNK_BYTES);
+
+        CsvService service = new CsvService(repo, 1000, 4, Files.createTempDirectory("errors"));
+        ImportResult mapped = service.importStudentsMapped(file.toFile());
+        ImportResult streamed = service.importStudents(file.toFile());
+
+        // every record is either imported or reported, and both readers agree on which
+        Assertions.assertEquals(records, mapped.getSuccessCount() + mapped.getFailureCount());
+        Assertions.assertEquals(streamed.getSuccessCount(), mapped.getSuccessCount());
+        Assertions.assertEquals(streamed.getErrorCounts(), mapped.getErrorCounts());
+        Assertions.assertFalse(mapped.getMessage().contains("Failed to read CSV"), mapped.getMessage());
+        Assertions.assertEquals(mapped.getSuccessCount(), repo.count());
+    }
+
+    @Test
+    void cancelStopsAtBatchBoundaryAndReportsProgress() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-cancel", ".db");
+        SqliteStudentRepository sqlite = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+        CancellationToken cancel = new CancellationToken();
+
+        // cancels while the first batch is being written
+        StudentRepository repo = new StudentRepository() {
+            public boolean existsById(String id) { return sqlite.existsById(id); }
+            public void add(Student s) { sqlite.add(s); }
+            public void update(Student s) { sqlite.update(s); }
+            public void delete(String id) { sqlite.delete(id); }
+            public Optional<Student> findById(String id) { return sqlite.findById(id); }
+            public List<Student> findAll() { return sqlite.findAll(); }
+            public List<Student> search(String q) { return sqlite.search(q); }
+            public UpsertCounts upsertChanged(List<Student> students) {
+                cancel.cancel();
+                return sqlite.upsertChanged(students);
+            }
+        };
+
+        StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa\n");
+        for (int i = 0; i < 1000; i++) csv.append("CX").append(1000 + i).append(",Name,IT,100,3.0\n");
+        Path file = Files.createTempFile("students-cancel", ".csv");
+        Files.writeString(file, csv);
+
+        List<ImportProgress> events = new CopyOnWriteArrayList<>(); // ticker and caller both add
+        ImportResult r = new CsvService(repo, 100, 2, Files.createTempDirectory("errors"))
+                .importStudents(file.toFile(), events::add, cancel);
+
+        Assertions.assertTrue(r.isCancelled());
+        Assertions.assertEquals(100, r.getSuccessCount());
+        Assertions.assertEquals(100, sqlite.count());
+        Assertions.assertTrue(r.getMessage().startsWith("Import cancelled: rows after line 101"), r.getMessage());
+
+        ImportProgress last = events.get(events.size() - 1);
+        Assertions.assertEquals(100, last.rowsCommitted());
+        Assertions.assertEquals(Files.size(file), last.totalBytes());
+    }
+
+    @Test
+    void errorsAreCappedInMemoryAndStreamedToReport() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-errors", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+
+        StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa\n");
+        for (int i = 0; i < 600; i++) csv.append("ER").append(1000 + i).append(",Name,IT,100,bad\n");
+        for (int i = 0; i < 400; i++) csv.append("ER").append(2000 + i).append(",\"Name, \"\"Q\"\"\",IT,,3.0\n");
+        csv.append("ER9999,Ok,IT,100,3.0\n");
+        Path file = Files.createTempFile("students-errors", ".csv");
+        Files.writeString(file, csv);
+        Path dir = Files.createTempDirectory("errors");
+
+        ImportResult r = new CsvService(repo, 100, 2, dir).importStudents(file.toFile());
+
+        Assertions.assertEquals(1, r.getSuccessCount());
+        Assertions.assertEquals(1000, r.getFailureCount());
+        Assertions.assertEquals(2, r.getErrorCounts().size());
+        Assertions.assertEquals(1000L, r.getErrorCounts().values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(600L, r.getErrorCounts().entrySet().iterator().next().getValue());
+
+        // only the first 200 rows are in the message, the report has all of them
+        Assertions.assertEquals(200, r.getMessage().lines().filter(l -> l.startsWith("Row ")).count());
+        Assertions.assertTrue(r.getMessage().contains("800 more errors not shown"), r.getMessage());
+        Assertions.assertEquals(dir, r.getErrorReport().getParent());
+        Assertions.assertTrue(r.getErrorReport().getFileName().toString().startsWith("import_errors_"));
+
+        List<String> report = Files.readAllLines(r.getErrorReport());
+        Assertions.assertEquals(1001, report.size());
+        Assertions.assertEquals("line,error,data", report.get(0));
+        Assertions.assertTrue(report.get(1).startsWith("2,"), report.get(1));
+        Assertions.assertTrue(report.get(601).startsWith("602,"), report.get(601));
+        Assertions.assertTrue(report.get(601).endsWith(",\"ER2000,Name, \"\"Q\"\",IT,,3.0,,,,\""), report.get(601));
+    }
+
+    @Test
+    void cleanImportWritesNoReport() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-clean", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+        Path file = Files.createTempFile("students-clean", ".csv");
+        Files.writeString(file, "studentid,fullname,programme,level,gpa\nCL0001,Name,IT,100,3.0\n");
+        Path dir = Files.createTempDirectory("errors");
+
+        ImportResult r = new CsvService(repo, 100, 2, dir).importStudents(file.toFile());
+
+        Assertions.assertEquals("Import completed successfully.", r.getMessage());
+        Assertions.assertNull(r.getErrorReport());
+        Assertions.assertEquals(Map.of(), r.getErrorCounts());
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void resumeContinuesAfterLastCommittedBatch() throws Exception {
+        for (boolean mapped : new boolean[]{true, false}) {
+            Path db = Files.createTempFile("classmonitor-import-resume", ".db");
+            SqliteStudentRepository sqlite = new SqliteStudentRepository(
+                    ConnectionManager.configure("jdbc:sqlite:" + db));
+            CancellationToken cancel = new CancellationToken();
+            List<Integer> upserted = new ArrayList<>();
+
+            // cancels during the first batch of the first run; counts rows sent per batch
+            StudentRepository repo = new StudentRepository() {
+                public boolean existsById(String id) { return sqlite.existsById(id); }
+                public void add(Student s) { sqlite.add(s); }
+                public void update(Student s) { sqlite.update(s); }
+                public void delete(String id) { sqlite.delete(id); }
+                public Optional<Student> findById(String id) { return sqlite.findById(id); }
+                public List<Student> findAll() { return sqlite.findAll(); }
+                public List<Student> search(String q) { return sqlite.search(q); }
+                public UpsertCounts upsertChanged(List<Student> students) {
+                    cancel.cancel();
+                    UpsertCounts n = sqlite.upsertChanged(students);
+                    upserted.add(n.total());
+                    return n;
+                }
+            };
+
+            StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa\n");
+            for (int i = 0; i < 1000; i++) csv.append("RS").append(1000 + i).append(",Name,IT,100,3.0\n");
+            csv.append("RS9999,Name,IT,100,9.9\n");
+            Path file = Files.createTempFile("students-resume", ".csv");
+            Files.writeString(file, csv);
+
+            CsvService service = new CsvService(repo, 100, 2, Files.createTempDirectory("errors"));
+            ImportResult first = mapped
+                    ? service.importStudentsMapped(file.toFile(), null, cancel)
+                    : service.importStudents(file.toFile(), null, cancel);
+            Assertions.assertTrue(first.isCancelled());
+
+            ImportJob job = service.findResumableImport(file.toFile()).orElseThrow();
+            Assertions.assertEquals(ImportJob.CANCELLED, job.status());
+            Assertions.assertEquals(101, job.lastLine());
+            Assertions.assertEquals(100, job.successCount());
+            Assertions.assertEquals(mapped ? 2 : 1, job.offsetLine());
+
+            upserted.clear();
+            ImportResult resumed = service.resumeImport(file.toFile(), job, null, new CancellationToken());
+
+            Assertions.assertFalse(resumed.isCancelled());
+            Assertions.assertEquals(900, upserted.stream().mapToInt(Integer::intValue).sum(), "mapped=" + mapped);
+            Assertions.assertEquals(1000, resumed.getSuccessCount());
+            Assertions.assertEquals(1, resumed.getFailureCount());
+            Assertions.assertEquals(1000, sqlite.count());
+            Assertions.assertTrue(service.findResumableImport(file.toFile()).isEmpty());
+        }
+    }
+
+    @Test
+    void listenersOnlySeeCommittedBatches() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-rollback", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        SqliteStudentRepository sqlite = new SqliteStudentRepository(manager);
+        CachingStudentRepository repo = new CachingStudentRepository(sqlite);
+        StudentSnapshot snapshot = StudentSnapshot.of(repo);
+        ReportService reports = new ReportService(repo, new SqliteStatsRepository(manager), snapshot);
+        repo.addListener(snapshot);
+        repo.addListener(reports);
+        Assertions.assertEquals(0, reports.studentCount());
+
+        // the checkpoint of the second batch fails after its rows were upserted in the transaction
+        SqliteImportJobRepository sqliteJobs = new SqliteImportJobRepository(manager);
+        AtomicInteger batches = new AtomicInteger();
+        List<Long> generations = new CopyOnWriteArrayList<>();
+        long before = reports.generation();
+        ImportJobRepository jobs = new ImportJobRepository() {
+            public ImportJob start(String path, String fingerprint, long size) {
+                return sqliteJobs.start(path, fingerprint, size);
+            }
+            public <T> T commitBatch(long jobId, Supplier<T> batch, Function<? super T, ImportJob.Checkpoint> checkpoint) {
+                return sqliteJobs.commitBatch(jobId, batch, result -> {
+                    generations.add(reports.generation()); // not told about this batch yet
+                    if (batches.incrementAndGet() == 2) throw new IllegalStateException("disk full");
+                    return checkpoint.apply(result);
+                });
+            }
+            public void finish(long jobId, String status, int success, int failure) {
+                sqliteJobs.finish(jobId, status, success, failure);
+            }
+            public Optional<ImportJob> findResumable(String fingerprint) {
+                return sqliteJobs.findResumable(fingerprint);
+            }
+            public Optional<ImportJob> findById(long jobId) {
+                return sqliteJobs.findById(jobId);
+            }
+        };
+
+        StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa\n");
+        for (int i = 0; i < 300; i++) csv.append("RB").append(1000 + i).append(",Name,IT,100,3.0\n");
+        Path file = Files.createTempFile("students-rollback", ".csv");
+        Files.writeString(file, csv);
+
+        ImportResult result = new CsvService(repo, jobs, 100, 1, Files.createTempDirectory("errors"))
+                .importStudents(file.toFile());
+        Assertions.assertEquals(200, result.getSuccessCount());
+        Assertions.assertEquals(100, result.getFailureCount());
+        Assertions.assertEquals(3, generations.size());
+        Assertions.assertEquals(before, generations.get(0));
+        Assertions.assertTrue(generations.get(1) > before);
+
+        // the rolled-back batch reached neither the snapshot nor the cached reports
+        Assertions.assertEquals(200, sqlite.count());
+        Assertions.assertEquals(200, snapshot.size());
+        Assertions.assertEquals(200, reports.studentCount());
+        Assertions.assertTrue(repo.findById("RB1150").isEmpty());
+        Assertions.assertEquals(sqlite.findAll().stream().map(Student::studentId).sorted().toList(),
+                snapshot.activeStudents().stream().map(Student::studentId).sorted().toList());
+    }
+
+    @Test
+    void reimportSkipsUnchangedRows() throws Exception {
+        Path db = Files.createTempFile("classmonitor-import-changes", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        SqliteStudentRepository repo = new SqliteStudentRepository(manager);
+        CsvService service = new CsvService(repo, 100, 2, Files.createTempDirectory("errors"));
+
+        StringBuilder csv = new StringBuilder("studentid,fullname,programme,level,gpa,status\n");
+        for (int i = 0; i < 500; i++) csv.append("CH").append(1000 + i).append(",Name,IT,100,3.0,active\n");
+        Path file = Files.createTempFile("students-changes", ".csv");
+        Files.writeString(file, csv);
+
+        ImportResult first = service.importStudents(file.toFile());
+        Assertions.assertEquals(new UpsertCounts(500, 0, 0), first.getChanges());
+
+        // an edit through the app stores the same kind of hash
+        Student edited = repo.findById("CH1001").orElseThrow();
+        repo.update(new Student(edited.studentId(), "Other Name", edited.programme(), edited.level(),
+                edited.gpa(), edited.email(), edited.phone(), edited.dateAddedIso(), edited.status()));
+
+        countStudentWrites(manager);
+        ImportResult second = service.importStudents(file.toFile());
+        Assertions.assertEquals(new UpsertCounts(0, 1, 499), second.getChanges());
+        Assertions.assertEquals(500, second.getSuccessCount());
+        Assertions.assertEquals(1, studentWrites(manager));
+        Assertions.assertEquals("Name", repo.findById("CH1001").orElseThrow().fullName());
+
+        Files.writeString(file, csv.toString().replace("CH1002,Name,IT,100,3.0", "CH1002,Name,IT,200,3.0")
+                + "CH9999,Name,IT,100,3.0,active\n");
+        Assertions.assertEquals(new UpsertCounts(1, 1, 499), service.importStudents(file.toFile()).getChanges());
+    }
+
+    /** Counts inserts and updates on students from now on (temp objects live on the writer connection). */
+    private static void countStudentWrites(ConnectionManager manager) throws Exception {
+        try (ConnectionManager.Lease lease = manager.write();
+             var st = lease.connection().createStatement()) {
+            st.executeUpdate("CREATE TEMP TABLE student_writes(n INTEGER)");
+            st.executeUpdate("INSERT INTO student_writes VALUES (0)");
+            st.executeUpdate("CREATE TEMP TRIGGER count_ins AFTER INSERT ON main.students BEGIN UPDATE student_writes SET n = n + 1; END");
+            st.executeUpdate("CREATE TEMP TRIGGER count_upd AFTER UPDATE ON main.students BEGIN UPDATE student_writes SET n = n + 1; END");
+        }
+    }
+
+    private static long studentWrites(ConnectionManager manager) throws Exception {
+        try (ConnectionManager.Lease lease = manager.write();
+             var rs = lease.connection().createStatement().executeQuery("SELECT n FROM student_writes")) {
+            return rs.getLong(1);
+        }
+    }
+
+    /** Distinct letters-only suffix per number (names may not contain digits). */
+    private static String letters(int n) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return sb.toString();
+    }
+}
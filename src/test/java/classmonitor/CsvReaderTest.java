@@ -0,0 +1,63 @@
+package classmonitor;
+
+import com.classmonitor.service.CsvReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvReaderTest {
+
+    @Test
+    void handlesQuotesEscapesAndEmbeddedNewlines() throws IOException {
+        String csv = "\uFEFFid,name,note\r\n"
+                + "A1,\"Mensah, Alice\",\"said \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "A2, \"multi\nline\" ,plain\n"
+                + "A3,,\n"
+                + "A4,last,no newline";
+
+        CsvReader r = new CsvReader(new StringReader(csv));
+        Assertions.assertEquals(',', r.delimiter());
+
+        List<List<String>> rows = new ArrayList<>();
+        List<Long> lines = new ArrayList<>();
+        while (r.next()) {
+            List<String> row = new ArrayList<>();
+            for (int i = 0; i < r.fieldCount(); i++) row.add(r.string(i));
+            rows.add(row);
+            lines.add(r.recordLine());
+        }
+
+        Assertions.assertEquals(List.of(
+                List.of("id", "name", "note"),
+                List.of("A1", "Mensah, Alice", "said \"hi\""),
+                List.of("A2", "multi\nline", "plain"),
+                List.of("A3", "", ""),
+                List.of("A4", "last", "no newline")), rows);
+        Assertions.assertEquals(List.of(1L, 2L, 4L, 6L, 7L), lines);
+    }
+
+    @Test
+    void detectsSemicolonsAndExposesViews() throws IOException {
+        CsvReader r = new CsvReader(new StringReader("a;b;\"c;d\"\n1; 2 ;3\n"));
+        Assertions.assertEquals(';', r.delimiter());
+        Assertions.assertTrue(r.next());
+        Assertions.assertEquals("c;d", r.field(2).toString());
+        Assertions.assertTrue(r.next());
+        Assertions.assertEquals(" 2 ", r.field(1).toString());
+        Assertions.assertEquals("2", r.string(1));
+        Assertions.assertEquals("", r.string(7));
+        Assertions.assertFalse(r.next());
+    }
+
+    @Test
+    void rejectsUnclosedQuote() throws IOException {
+        CsvReader r = new CsvReader(new StringReader("a,b\n1,\"open\n2,3\n"));
+        Assertions.assertTrue(r.next());
+        Assertions.assertThrows(IOException.class, r::next);
+    }
+}
@@ -0,0 +1,128 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.service.GpaBreakdown;
+import com.classmonitor.service.GpaStats;
+import com.classmonitor.service.StudentSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+class GpaStatsTest {
+
+    private static final String[] PROGRAMMES = {"IT", "Maths", "Physics", "Art"};
+
+    @Test
+    void parallelBreakdownMatchesSortedComputation() {
+        // enough rows that gpaStats() splits the work into several partitions
+        Random rnd = new Random(11);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 300_000; i++) {
+            double gpa = Math.min(400, Math.max(0, (int) Math.round(280 + rnd.nextGaussian() * 60))) / 100.0;
+            students.add(new Student("GS" + i, "Name", PROGRAMMES[rnd.nextInt(PROGRAMMES.length)],
+                    100 * (1 + rnd.nextInt(4)), gpa, "", "", "2026-02-02", "Active"));
+        }
+        GpaBreakdown stats = StudentSnapshot.of(students).gpaStats();
+
+        assertMatches(students, s -> true, stats.overall());
+        Assertions.assertEquals(List.of("Art", "IT", "Maths", "Physics"), List.copyOf(stats.byProgramme().keySet()));
+        for (String p : PROGRAMMES) {
+            assertMatches(students, s -> s.programme().equals(p), stats.byProgramme().get(p));
+            for (int lv = 100; lv <= 400; lv += 100) {
+                int level = lv;
+                assertMatches(students, s -> s.programme().equals(p) && s.level() == level,
+                        stats.byProgrammeAndLevel().get(p).get(lv));
+            }
+        }
+        for (int lv = 100; lv <= 400; lv += 100) {
+            int level = lv;
+            assertMatches(students, s -> s.level() == level, stats.byLevel().get(lv));
+        }
+    }
+
+    @Test
+    void mergeEqualsCollectingEverythingInOne() {
+        double[] gpas = {0.0, 1.25, 2.5, 2.5, 3.1, 3.99, 4.0, 0.75, 1.8, 2.22};
+        GpaStats all = new GpaStats();
+        GpaStats left = new GpaStats();
+        GpaStats right = new GpaStats();
+        for (int i = 0; i < gpas.length; i++) {
+            all.add(gpas[i]);
+            (i < 3 ? left : right).add(gpas[i]);
+        }
+        GpaStats merged = new GpaStats().merge(left).merge(right);
+
+        Assertions.assertEquals(all.count(), merged.count());
+        Assertions.assertEquals(all.mean(), merged.mean(), 1e-12);
+        Assertions.assertEquals(all.variance(), merged.variance(), 1e-12);
+        Assertions.assertEquals(all.median(), merged.median());
+        Assertions.assertEquals(all.histogram(0.5), merged.histogram(0.5));
+        Assertions.assertEquals(Map.of(0.0, 2L, 1.0, 2L, 2.0, 3L, 3.0, 2L, 4.0, 1L), merged.histogram(1.0));
+
+        GpaStats empty = new GpaStats();
+        Assertions.assertTrue(Double.isNaN(empty.median()));
+        Assertions.assertTrue(empty.histogram(0.25).isEmpty());
+    }
+
+    @Test
+    void gpasOffTheStepsOrAboveFourStayExact() {
+        // older data allowed GPAs up to 5.0, and imports keep whatever decimals the file has
+        double[] gpas = {4.5, 5.0, 3.125, 2.999, 0.001, 3.1, 3.1, 4.0, 12.0, 4.75, 1.005, 0.0};
+        GpaStats all = new GpaStats();
+        GpaStats left = new GpaStats();
+        GpaStats right = new GpaStats();
+        for (int i = 0; i < gpas.length; i++) {
+            all.add(gpas[i]);
+            (i % 2 == 0 ? left : right).add(gpas[i]);
+        }
+        GpaStats merged = new GpaStats().merge(left).merge(right);
+        double[] sorted = gpas.clone();
+        Arrays.sort(sorted);
+
+        for (GpaStats stats : List.of(all, merged)) {
+            Assertions.assertEquals(0.0, stats.min());
+            Assertions.assertEquals(12.0, stats.max());
+            for (int k = 0; k <= 20; k++) {
+                double q = k / 20.0;
+                double expected = sorted[(int) Math.max(0, Math.ceil(q * sorted.length) - 1)];
+                Assertions.assertEquals(expected, stats.quantile(q), "q=" + q);
+            }
+            Assertions.assertEquals(5.0, stats.p90());
+            Assertions.assertEquals(Map.of(0.0, 3L, 2.0, 4L, 4.0, 4L, 6.0, 0L, 8.0, 0L, 10.0, 0L, 12.0, 1L),
+                    stats.histogram(2.0));
+            Map<Double, Long> fine = stats.histogram(0.01);
+            Assertions.assertEquals(2L, fine.get(3.1));
+            Assertions.assertEquals(1L, fine.get(3.12));
+            Assertions.assertEquals(1L, fine.get(5.0));
+        }
+    }
+
+    private static void assertMatches(List<Student> students, Predicate<Student> group, GpaStats actual) {
+        double[] gpas = students.stream().filter(group).mapToDouble(Student::gpa).sorted().toArray();
+        int n = gpas.length;
+        double mean = 0;
+        for (double g : gpas) mean += g;
+        mean /= n;
+        double variance = 0;
+        for (double g : gpas) variance += (g - mean) * (g - mean);
+        variance /= n;
+
+        Assertions.assertEquals(n, actual.count());
+        Assertions.assertEquals(mean, actual.mean(), 1e-9);
+        Assertions.assertEquals(variance, actual.variance(), 1e-9);
+        Assertions.assertEquals(gpas[0], actual.min());
+        Assertions.assertEquals(gpas[n - 1], actual.max());
+        for (double q : new double[]{0.1, 0.5, 0.9}) {
+            double expected = gpas[(int) Math.max(0, Math.ceil(q * n) - 1)];
+            Assertions.assertEquals(expected, actual.quantile(q), 1e-9, "q=" + q);
+        }
+        long binned = actual.histogram(0.25).values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(n, binned);
+    }
+}
@@ -0,0 +1,73 @@
+package classmonitor;
+
+import com.classmonitor.service.CsvReader;
+import com.classmonitor.service.MappedCsvFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class MappedCsvFileTest {
+
+    @Test
+    void slicesEndOnRecordBoundariesOutsideQuotes() throws Exception {
+        String body = "id,note\r\n"
+                + "1,\"two\nlines\"\r\n"
+                + "2,\"comma, and \"\"quote\"\"\"\n"
+                + "3,Ghana \u2013 Kumasi\n"       // multi-byte UTF-8
+                + "4,\"a\rb\"\r"               // lone CR ends the record
+                + "5,last";
+        Path file = Files.createTempFile("mapped", ".csv");
+        Files.write(file, ("\uFEFF" + body).getBytes(StandardCharsets.UTF_8));
+
+        List<String> ids = new ArrayList<>();
+        List<Long> lines = new ArrayList<>();
+        StringBuilder joined = new StringBuilder();
+
+        // 1-byte target: every slice is exactly one record
+        try (MappedCsvFile mapped = new MappedCsvFile(file, 1)) {
+            MappedCsvFile.Slice slice;
+            while ((slice = mapped.nextChunk()) != null) {
+                String text = StandardCharsets.UTF_8.decode(slice.bytes()).toString();
+                joined.append(text);
+
+                CsvReader r = new CsvReader(new StringReader(text), ',');
+                Assertions.assertTrue(r.next(), text);
+                ids.add(r.string(0));
+                lines.add(slice.firstLine());
+                Assertions.assertFalse(r.next(), "slice holds more than one record: " + text);
+            }
+        }
+
+        Assertions.assertEquals(body, joined.toString());
+        Assertions.assertEquals(List.of("id", "1", "2", "3", "4", "5"), ids);
+        Assertions.assertEquals(List.of(1L, 2L, 4L, 5L, 6L, 7L), lines);
+    }
+
+    @Test
+    void strayQuoteInUnquotedFieldIsPlainText() throws Exception {
+        // as in CsvReader: only a quote at the start of a field opens a quoted field
+        String body = "id,note\n1,O\"Brien\n2, \"two\nlines\"\n3,\"\"\"x\"\"\"\n4,end\"\n";
+        Path file = Files.createTempFile("mapped-quotes", ".csv");
+        Files.writeString(file, body);
+
+        List<String> notes = new ArrayList<>();
+        try (MappedCsvFile mapped = new MappedCsvFile(file, 1)) {
+            mapped.delimiter(',');
+            MappedCsvFile.Slice slice;
+            while ((slice = mapped.nextChunk()) != null) {
+                String text = StandardCharsets.UTF_8.decode(slice.bytes()).toString();
+                CsvReader r = new CsvReader(new StringReader(text), ',');
+                Assertions.assertTrue(r.next(), text);
+                notes.add(r.string(1));
+                Assertions.assertFalse(r.next(), "slice holds more than one record: " + text);
+            }
+        }
+        Assertions.assertEquals(List.of("note", "O\"Brien", "two\nlines", "\"x\"", "end\""), notes);
+    }
+}
@@ -0,0 +1,41 @@
+package classmonitor;
+
+import com.classmonitor.repository.MigrationRunner;
+import com.classmonitor.repository.Schema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class MigrationRunnerTest {
+
+    @Test
+    void appliesEachMigrationOnce() throws Exception {
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            MigrationRunner runner = new MigrationRunner(Schema.MIGRATIONS);
+
+            Assertions.assertEquals(Schema.MIGRATIONS.size(), runner.migrate(c));
+            Assertions.assertEquals(0, runner.migrate(c));
+            Assertions.assertEquals(Schema.MIGRATIONS.size(), MigrationRunner.currentVersion(c));
+        }
+    }
+
+    @Test
+    void gpaFilterUsesIndex() throws Exception {
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            Schema.ensure(c);
+            try (ResultSet rs = c.createStatement().executeQuery(
+                    "EXPLAIN QUERY PLAN SELECT * FROM students WHERE gpa < 2.5")) {
+                Assertions.assertTrue(rs.next());
+                // e.g. "SEARCH students USING INDEX idx_students_gpa_id (gpa<?)"
+                Matcher m = Pattern.compile("USING (?:COVERING )?INDEX (\\w+)").matcher(rs.getString("detail"));
+                Assertions.assertTrue(m.find(), rs.getString("detail"));
+                Assertions.assertEquals("idx_students_gpa_id", m.group(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.CachingStudentRepository;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.GpaSummary;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.GpaStats;
+import com.classmonitor.service.ReportService;
+import com.classmonitor.service.StudentSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class ReportServiceTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void reportsAreCachedUntilTheNextWrite() throws Exception {
+        Path db = Files.createTempFile("classmonitor-reports", ".db");
+        CachingStudentRepository repo = new CachingStudentRepository(
+                new SqliteStudentRepository(ConnectionManager.configure("jdbc:sqlite:" + db)));
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            students.add(new Student(String.format("RS%04d", i), "Name", i % 2 == 0 ? "IT" : "Maths",
+                    100 + 100 * (i % 4), (i % 41) / 10.0, "", "", "2026-03-01", i % 5 == 0 ? "Inactive" : "Active"));
+        }
+        repo.upsertAll(students);
+
+        StudentSnapshot snapshot = StudentSnapshot.of(repo);
+        ReportService reports = new ReportService(repo, new SqliteStatsRepository(), snapshot, 5);
+        repo.addListener(snapshot);
+        repo.addListener(reports);
+
+        List<Student> atRisk = reports.atRisk(2.0);
+        Assertions.assertEquals(students.stream().filter(s -> s.gpa() < 2.0).count(), atRisk.size());
+        Assertions.assertSame(atRisk, reports.atRisk(2.0));
+        Assertions.assertNotSame(atRisk, reports.atRisk(2.5)); // other parameters, other entry
+        List<Student> top = reports.topPerformers("IT", null);
+        Assertions.assertSame(top, reports.topPerformers("IT", null));
+        Assertions.assertNotEquals(top, reports.topPerformers("Maths", null));
+        Map<String, GpaSummary> summary = reports.programmeSummary();
+        Assertions.assertEquals(Map.of("IT", 100L, "Maths", 100L), counts(summary));
+        double itMean = students.stream().filter(s -> s.programme().equals("IT")).mapToDouble(Student::gpa).average().orElseThrow();
+        Assertions.assertEquals(itMean, summary.get("IT").average(), 1e-9);
+        Assertions.assertSame(summary, reports.programmeSummary());
+        Assertions.assertEquals(3, reports.hitCount());
+
+        // shared results are read-only all the way down
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> reports.gpaStats().overall().add(1.0));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> reports.gpaStats().byProgrammeAndLevel().get("IT").get(100).merge(new GpaStats()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> reports.topPerProgramme().get("IT").clear());
+        Assertions.assertEquals(reports.topPerformers("IT", null), reports.topPerProgramme().get("IT").subList(0, 5));
+
+        // any write moves the generation: everything is recomputed and sees the new row
+        long gen = reports.generation();
+        repo.add(new Student("RS9999", "New Person", "Art", 100, 0.5, "", "", "2026-03-01", "Active"));
+        Assertions.assertTrue(reports.generation() > gen);
+
+        List<Student> after = reports.atRisk(2.0);
+        Assertions.assertNotSame(atRisk, after);
+        Assertions.assertEquals(atRisk.size() + 1, after.size());
+        Assertions.assertEquals(Map.of("Art", 1L, "IT", 100L, "Maths", 100L), counts(reports.programmeSummary()));
+        Assertions.assertEquals(201, reports.studentCount());
+        Assertions.assertEquals(201, reports.gpaStats().overall().count());
+
+        repo.delete("RS9999");
+        Assertions.assertEquals(atRisk, reports.atRisk(2.0));
+        Assertions.assertEquals(200, reports.studentCount());
+    }
+
+    private static Map<String, Long> counts(Map<String, GpaSummary> summary) {
+        Map<String, Long> out = new TreeMap<>();
+        summary.forEach((p, s) -> out.put(p, s.count()));
+        return out;
+    }
+}
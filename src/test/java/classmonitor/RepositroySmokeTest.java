@@ -6,6 +6,8 @@ import com.classmonitor.repository.sqlite.SqliteStudentRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 class RepositorySmokeTest {
 
     @Test
@@ -24,4 +26,51 @@ class RepositorySmokeTest {
         Assertions.assertTrue(got.isPresent());
         Assertions.assertEquals(id, got.get().studentId());
     }
+
+    @Test
+    void upsertAllInsertsThenUpdates() {
+        Db.initSchema();
+        SqliteStudentRepository repo = new SqliteStudentRepository();
+
+        String a = "UPA" + System.currentTimeMillis();
+        String b = "UPB" + System.currentTimeMillis();
+
+        int written = repo.upsertAll(List.of(
+                new Student(a, "First A", "IT", 100, 2.0, "a@a.com", "0123456789", "2026-02-02", "Active"),
+                new Student(b, "First B", "IT", 200, 2.5, "b@b.com", "0123456789", "2026-02-02", "Active")
+        ), 1);
+        Assertions.assertEquals(2, written);
+
+        repo.upsertAll(List.of(
+                new Student(a, "Second A", "IT", 300, 3.9, "a@a.com", "0123456789", "2030-01-01", "Inactive")
+        ));
+
+        Student got = repo.findById(a).orElseThrow();
+        Assertions.assertEquals("Second A", got.fullName());
+        Assertions.assertEquals(300, got.level());
+        Assertions.assertEquals("2026-02-02", got.dateAddedIso()); // kept on conflict
+        Assertions.assertEquals("First B", repo.findById(b).orElseThrow().fullName());
+    }
+
+    @Test
+    void searchMatchesWordPrefixesAndFollowsUpdates() {
+        Db.initSchema();
+        SqliteStudentRepository repo = new SqliteStudentRepository();
+
+        String id = "FTS" + System.currentTimeMillis();
+        repo.add(new Student(id, "Qwzx Mensah", "IT", 100, 3.0,
+                "q@q.com", "0123456789", "2026-02-02", "Active"));
+
+        Assertions.assertEquals(id, repo.search("qwz mens").get(0).studentId());
+        Assertions.assertEquals(id, repo.search(id.substring(0, 6)).stream()
+                .filter(s -> s.studentId().equals(id)).findFirst().orElseThrow().studentId());
+
+        repo.update(new Student(id, "Plvk Mensah", "IT", 100, 3.0,
+                "q@q.com", "0123456789", "2026-02-02", "Active"));
+        Assertions.assertTrue(repo.search("qwzx").isEmpty());
+        Assertions.assertEquals(1, repo.search("plvk").size());
+
+        repo.delete(id);
+        Assertions.assertTrue(repo.search("plvk").isEmpty());
+    }
 }
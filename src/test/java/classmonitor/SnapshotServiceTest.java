@@ -0,0 +1,111 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.GpaSummary;
+import com.classmonitor.repository.ProgrammeDAO;
+import com.classmonitor.repository.SettingsDAO;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.SnapshotResult;
+import com.classmonitor.service.SnapshotService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+class SnapshotServiceTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void restoreBringsBackEverythingBackedUp() throws Exception {
+        Path db = Files.createTempFile("classmonitor-snapshot", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        SqliteStudentRepository repo = new SqliteStudentRepository(manager);
+        ProgrammeDAO programmes = new ProgrammeDAO(manager);
+
+        List<Student> students = new ArrayList<>();
+        String[] names = {"IT", "Maths", "Physics"};
+        for (int i = 0; i < 5000; i++) {
+            students.add(new Student(String.format("SP%05d", i), "Name Zoë " + i, names[i % 3], 100 + 100 * (i % 4),
+                    (i % 41) / 10.0, i % 7 == 0 ? null : "s" + i + "@s.com", "0123456789", "2026-03-01",
+                    i % 5 == 0 ? "Inactive" : "Active"));
+        }
+        repo.upsertAll(students);
+        for (String n : names) programmes.addProgramme(n);
+        try (ConnectionManager.Lease lease = manager.write()) {
+            new SettingsDAO(lease.connection()).setTopThreshold(3.7);
+        }
+
+        Path file = Files.createTempDirectory("snapshot").resolve("backup.cmsnap");
+        SnapshotService service = new SnapshotService(manager);
+        SnapshotResult saved = service.backup(file);
+        Assertions.assertEquals(5000, saved.students());
+        Assertions.assertEquals(3, saved.programmes());
+        Assertions.assertEquals(Files.size(file), saved.bytes());
+
+        // change everything, then restore
+        repo.delete("SP00001");
+        repo.add(new Student("ZZ0001", "Extra Person", "Art", 100, 2.0, "", "", "2026-03-01", "Active"));
+        programmes.deleteProgramme("Maths");
+        try (ConnectionManager.Lease lease = manager.write()) {
+            new SettingsDAO(lease.connection()).setTopThreshold(3.9);
+        }
+
+        SnapshotResult restored = service.restore(file);
+        Assertions.assertEquals(5000, restored.students());
+        Assertions.assertEquals(students, repo.findAll().stream()
+                .sorted(Comparator.comparing(Student::studentId)).toList());
+        Assertions.assertEquals(List.of("IT", "Maths", "Physics"), programmes.getAllProgrammes());
+        try (ConnectionManager.Lease lease = manager.read()) {
+            Assertions.assertEquals(3.7, new SettingsDAO(lease.connection()).getTopThreshold());
+        }
+
+        // the search index was rebuilt for the restored rows and is kept in sync again
+        Assertions.assertEquals("SP00001", repo.search("SP00001").get(0).studentId());
+        Assertions.assertTrue(repo.search("ZZ0001").isEmpty());
+        repo.add(new Student("ZZ0002", "Later Person", "Art", 100, 2.0, "", "", "2026-03-01", "Active"));
+        Assertions.assertEquals(1, repo.search("ZZ0002").size());
+
+        // so were the aggregates, and their triggers are back
+        Map<String, GpaSummary> summary = new SqliteStatsRepository(manager).programmeSummary();
+        Assertions.assertEquals(List.of("Art", "IT", "Maths", "Physics"), List.copyOf(summary.keySet()));
+        Assertions.assertEquals(1, summary.get("Art").count());
+        Assertions.assertEquals(students.stream().filter(s -> s.programme().equals("IT")).count(),
+                summary.get("IT").count());
+    }
+
+    @Test
+    void corruptSnapshotLeavesDatabaseUntouched() throws Exception {
+        Path db = Files.createTempFile("classmonitor-snapshot", ".db");
+        ConnectionManager manager = ConnectionManager.configure("jdbc:sqlite:" + db);
+        SqliteStudentRepository repo = new SqliteStudentRepository(manager);
+        for (int i = 0; i < 100; i++) {
+            repo.add(new Student(String.format("CS%04d", i), "Name", "IT", 100, 3.0, "", "", "2026-03-01", "Active"));
+        }
+
+        Path file = Files.createTempDirectory("snapshot").resolve("backup.cmsnap");
+        SnapshotService service = new SnapshotService(manager);
+        service.backup(file);
+
+        repo.delete("CS0000");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> service.restore(file));
+        Assertions.assertTrue(e.getMessage().startsWith("Snapshot restore failed: "), e.getMessage());
+        Assertions.assertEquals(99, repo.count());
+        Assertions.assertEquals(1, repo.search("CS0001").size());
+    }
+}
@@ -0,0 +1,108 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.DashboardStats;
+import com.classmonitor.repository.GpaSummary;
+import com.classmonitor.repository.sqlite.SqliteStatsRepository;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class StatsRepositoryTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void dashboardStatsMatchInMemoryAggregation() throws Exception {
+        Path file = Files.createTempFile("classmonitor-stats", ".db");
+        ConnectionManager db = ConnectionManager.configure("jdbc:sqlite:" + file);
+        SqliteStudentRepository repo = new SqliteStudentRepository(db);
+
+        // default thresholds: at risk < 2.0, top >= 3.5
+        repo.upsertAll(List.of(
+                student("ST01", 100, 1.5, "Active"),
+                student("ST02", 100, 2.0, "Inactive"),
+                student("ST03", 200, 3.5, "active"),
+                student("ST04", 200, 3.9, "Active"),
+                student("ST05", 300, 3.0, "Inactive")));
+
+        DashboardStats stats = new SqliteStatsRepository(db).dashboardStats();
+
+        Assertions.assertEquals(5, stats.total());
+        Assertions.assertEquals(3, stats.active());
+        Assertions.assertEquals(2, stats.inactive());
+        Assertions.assertEquals(2.78, stats.averageGpa(), 1e-9);
+        Assertions.assertEquals(1, stats.atRisk());
+        Assertions.assertEquals(2, stats.middle());
+        Assertions.assertEquals(2, stats.top());
+        Assertions.assertEquals(List.of(100, 200, 300), List.copyOf(stats.avgGpaByLevel().keySet()));
+        Assertions.assertEquals(3.7, stats.avgGpaByLevel().get(200), 1e-9);
+    }
+
+    @Test
+    void aggregatesFollowEveryKindOfWrite() throws Exception {
+        Path file = Files.createTempFile("classmonitor-stats", ".db");
+        ConnectionManager db = ConnectionManager.configure("jdbc:sqlite:" + file);
+        SqliteStudentRepository repo = new SqliteStudentRepository(db);
+        SqliteStatsRepository stats = new SqliteStatsRepository(db);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            students.add(new Student(String.format("AG%04d", i), "Name", i % 3 == 0 ? "IT" : "Maths",
+                    100 * (1 + i % 4), (i % 40) / 10.0, "", "", "2026-02-02", i % 6 == 0 ? "Inactive" : "Active"));
+        }
+        repo.upsertAll(students);
+        repo.add(student("ST01", 100, 1.5, "Active"));
+        repo.update(new Student("AG0001", "Name", "IT", 400, 3.3, "", "", "2026-02-02", "Inactive"));
+        repo.delete("AG0002");
+        repo.upsertChanged(List.of(
+                new Student("AG0003", "Name", "Physics", 200, 2.2, "", "", "2026-02-02", "Active"),
+                new Student("AG9999", "Name", "Physics", 300, 3.1, "", "", "2026-02-02", "Active")));
+
+        // same answer as aggregating the table directly
+        Map<String, GpaSummary> expected = new TreeMap<>();
+        for (Student s : repo.findAll()) {
+            expected.merge(s.programme(), new GpaSummary(1, s.gpa(), s.gpa() * s.gpa()), GpaSummary::plus);
+        }
+        assertSummaries(expected, stats.programmeSummary());
+
+        DashboardStats d = stats.dashboardStats();
+        Assertions.assertEquals(repo.count(), d.total());
+        Assertions.assertEquals(repo.findAll().stream().mapToDouble(Student::gpa).average().orElse(0),
+                d.averageGpa(), 1e-9);
+        Assertions.assertEquals(d.total(), d.atRisk() + d.middle() + d.top());
+
+        // the rebuild recomputes the same groups; emptied groups are gone either way
+        long groups = repo.findAll().stream().map(s -> s.programme() + "|" + s.level() + "|" + s.status()).distinct().count();
+        Assertions.assertEquals(groups, stats.rebuildAggregates());
+        assertSummaries(expected, stats.programmeSummary());
+        for (Student s : repo.findAll()) repo.delete(s.studentId());
+        Assertions.assertTrue(stats.programmeSummary().isEmpty());
+        Assertions.assertEquals(0, stats.dashboardStats().total());
+    }
+
+    private static void assertSummaries(Map<String, GpaSummary> expected, Map<String, GpaSummary> actual) {
+        Assertions.assertEquals(expected.keySet(), actual.keySet());
+        for (String p : expected.keySet()) {
+            Assertions.assertEquals(expected.get(p).count(), actual.get(p).count(), p);
+            Assertions.assertEquals(expected.get(p).average(), actual.get(p).average(), 1e-9, p);
+            Assertions.assertEquals(expected.get(p).stdDev(), actual.get(p).stdDev(), 1e-9, p);
+        }
+    }
+
+    private static Student student(String id, int level, double gpa, String status) {
+        return new Student(id, "Name " + id, "IT", level, gpa, id + "@x.com", "0123456789", "2026-02-02", status);
+    }
+}
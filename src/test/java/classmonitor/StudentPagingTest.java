@@ -0,0 +1,54 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.PageCursor;
+import com.classmonitor.repository.StudentPage;
+import com.classmonitor.repository.StudentSort;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class StudentPagingTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void pagesCoverEveryRowOnceInOrder() throws Exception {
+        Path file = Files.createTempFile("classmonitor-paging", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + file));
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // duplicate names and GPAs so the student_id tie-break matters
+            students.add(new Student(String.format("PG%04d", i), "Name " + (i % 7), "IT", 100,
+                    (i % 5) * 0.5, "p@p.com", "0123456789", "2026-02-02", "Active"));
+        }
+        repo.upsertAll(students);
+        Assertions.assertEquals(25, repo.count());
+
+        for (StudentSort sort : StudentSort.values()) {
+            List<Student> seen = new ArrayList<>();
+            PageCursor cursor = null;
+            StudentPage page;
+            do {
+                page = repo.findPage(cursor, 10, sort);
+                seen.addAll(page.rows());
+                cursor = page.next();
+            } while (page.hasMore());
+
+            List<Student> expected = students.stream().sorted(sort.comparator()).toList();
+            Assertions.assertEquals(expected, seen, sort.name());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.service.StudentSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+class StudentSnapshotTest {
+
+    @Test
+    void queriesMatchStreamVersionsAndFollowChanges() {
+        List<Student> students = new ArrayList<>();
+        String[] programmes = {"IT", "Maths", "Physics"};
+        // only "active" in any case counts, as in SQL's lower(status) = 'active'
+        String[] statuses = {"Active", "Inactive", "", "Graduated", "ACTIVE", "Active"};
+        for (int i = 0; i < 60; i++) {
+            students.add(new Student(String.format("SN%04d", i), "Name " + i, programmes[i % 3],
+                    100 * (1 + i % 4), (i * 37 % 41) / 10.0, "s@s.com", "0123456789", "2026-02-02",
+                    statuses[i % statuses.length]));
+        }
+        StudentSnapshot snap = StudentSnapshot.of(students);
+        assertMatches(students, snap);
+
+        // incremental: update one, add one, delete two (one from the middle)
+        Student changed = students.get(7);
+        changed = new Student(changed.studentId(), changed.fullName(), "Chemistry", 400, 3.95,
+                changed.email(), changed.phone(), changed.enrolledDate(), "Inactive");
+        students.set(7, changed);
+        snap.upserted(changed);
+
+        Student added = new Student("SN9999", "New One", "IT", 200, 0.4, "n@n.com", "0123456789", "2026-02-02", "Active");
+        students.add(added);
+        snap.upserted(added);
+
+        snap.deleted(students.remove(20).studentId());
+        snap.deleted(students.remove(students.size() - 1).studentId());
+
+        assertMatches(students, snap);
+    }
+
+    private static void assertMatches(List<Student> students, StudentSnapshot snap) {
+        Assertions.assertEquals(students.size(), snap.size());
+
+        List<Double> expectedTop = students.stream().filter(s -> s.programme().equals("IT"))
+                .map(Student::gpa).sorted(Comparator.reverseOrder()).limit(5).toList();
+        Assertions.assertEquals(expectedTop,
+                snap.topPerformers("IT", null, 5).stream().map(Student::gpa).toList());
+
+        List<Student> expectedRisk = students.stream().filter(s -> s.gpa() < 2.0)
+                .sorted(Comparator.comparingDouble(Student::gpa)).toList();
+        Assertions.assertEquals(expectedRisk.stream().map(Student::gpa).toList(),
+                snap.atRisk(2.0).stream().map(Student::gpa).toList());
+
+        Assertions.assertEquals(new TreeMap<>(students.stream().collect(
+                        Collectors.groupingBy(Student::programme, Collectors.counting()))),
+                snap.programmeSummary());
+
+        Map<Integer, Long> bands = new TreeMap<>(students.stream().collect(
+                Collectors.groupingBy(s -> (int) Math.floor(s.gpa()), Collectors.counting())));
+        Assertions.assertEquals(bands, snap.gpaDistribution());
+
+        long active = students.stream().filter(s -> s.status().equalsIgnoreCase("active")).count();
+        Assertions.assertEquals(active, snap.activeCount());
+        Assertions.assertEquals(active, snap.activeStudents().size());
+        Assertions.assertEquals(students.size() - active, snap.inactiveStudents().size());
+    }
+}
@@ -42,7 +42,7 @@ class StudentValidationTest {
         FakeRepo repo = new FakeRepo();
         StudentService svc = new StudentService(repo);
 
-        Student s = new Student("UMAT1234","Hash Mensah","Computer Science",200,4.7,
+        Student s = new Student("UMAT1234","Hash Mensah","Computer Science",200,5.7,
                 "hash@example.com","0241234567","2026-02-02","Active");
 
         Assertions.assertThrows(ValidationException.class, () -> svc.add(s));
@@ -0,0 +1,70 @@
+package classmonitor;
+
+import com.classmonitor.ValidationException;
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.StudentValidator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class StudentValidatorTest {
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    private static Student student(String id, String name, double gpa, String email, String phone, String date) {
+        return new Student(id, name, "Computer Science", 200, gpa, email, phone, date, "Active");
+    }
+
+    @Test
+    void reportsEveryViolation() {
+        StudentValidator v = new StudentValidator(new StudentValidationTest.FakeRepo());
+
+        Assertions.assertEquals(List.of(),
+                v.check(student("UMAT1234", "Ama Owusu", 4.0, "ama.o@mail.example.com", "0241234567", "2024-02-29")));
+
+        List<String> errors = v.check(student("U-1", "R2D2", 5.1, "ama@mail", "024 123", "2023-02-29"));
+        Assertions.assertEquals(6, errors.size(), errors.toString());
+        Assertions.assertEquals("Student ID must be 4 to 20 characters.", errors.get(0));
+
+        ValidationException ex = Assertions.assertThrows(ValidationException.class,
+                () -> v.validate(student("UMAT1234", "Ama Owusu", Double.NaN, "a@b.co", "0241234567", "2024-01-01"), false));
+        Assertions.assertEquals(List.of("GPA must be between 0.0 and 5.0."), ex.violations());
+
+        Assertions.assertNull(v.emailError("user_1+tag@gmail.com"));
+        Assertions.assertEquals("Email must contain @ and a dot.", v.emailError("user.gmail.com"));
+        Assertions.assertNotNull(v.emailError("user@.com"));
+        Assertions.assertNotNull(v.emailError("user@@gmail.com"));
+        Assertions.assertNotNull(v.emailError("user@gmail.c0m"));
+
+        // import rules: contact details are optional columns
+        Assertions.assertNull(StudentValidator.forImport().emailError(""));
+        Assertions.assertNull(StudentValidator.forImport().phoneError(""));
+        Assertions.assertNotNull(StudentValidator.forImport().phoneError("12345"));
+    }
+
+    @Test
+    void createAlsoReportsAStoredId() throws Exception {
+        Path db = Files.createTempFile("classmonitor-validator", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(
+                ConnectionManager.configure("jdbc:sqlite:" + db));
+        repo.add(student("OLD1000", "Stored Student", 3.0, "s@mail.com", "0241234567", "2024-01-01"));
+        StudentValidator v = new StudentValidator(repo);
+
+        Student returning = student("OLD1000", "Returning Student", 5.5, "s@mail.com", "0241234567", "2024-01-01");
+        ValidationException ex = Assertions.assertThrows(ValidationException.class, () -> v.validate(returning, true));
+        Assertions.assertEquals(List.of("GPA must be between 0.0 and 5.0.", "Student ID already exists."), ex.violations());
+
+        // updates keep their ID
+        v.validate(student("OLD1000", "Returning Student", 3.5, "s@mail.com", "0241234567", "2024-01-01"), false);
+        v.validate(student("NEW0001", "New Student", 3.5, "s@mail.com", "0241234567", "2024-01-01"), true);
+    }
+}
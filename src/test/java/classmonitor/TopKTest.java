@@ -0,0 +1,83 @@
+package classmonitor;
+
+import com.classmonitor.domain.Student;
+import com.classmonitor.repository.ConnectionManager;
+import com.classmonitor.repository.sqlite.SqliteStudentRepository;
+import com.classmonitor.service.StudentSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class TopKTest {
+
+    private static final String[] PROGRAMMES = {"IT", "Maths", "Physics"};
+    private static final Integer[] LEVELS = {null, 100, 200, 300, 400};
+
+    @AfterAll
+    static void restoreDefault() {
+        ConnectionManager.configure(ConnectionManager.DEFAULT_URL);
+    }
+
+    @Test
+    void heapAndIndexMatchFullSortIncludingTies() throws Exception {
+        // GPAs on a coarse grid so there are plenty of ties at every cut
+        Random rnd = new Random(7);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            students.add(new Student(String.format("TK%05d", i), "Name", PROGRAMMES[rnd.nextInt(3)],
+                    100 * (1 + rnd.nextInt(4)), rnd.nextInt(9) * 0.5, "", "", "2026-02-02", "Active"));
+        }
+        // snapshot rows in another order than IDs: ties must still break by ID, as in SQL
+        List<Student> shuffled = new ArrayList<>(students);
+        Collections.shuffle(shuffled, rnd);
+        StudentSnapshot snap = StudentSnapshot.of(shuffled);
+
+        Path db = Files.createTempFile("classmonitor-topk", ".db");
+        SqliteStudentRepository repo = new SqliteStudentRepository(ConnectionManager.configure("jdbc:sqlite:" + db));
+        repo.upsertAll(students);
+
+        for (String programme : new String[]{null, "IT", "Maths"}) {
+            for (Integer level : LEVELS) {
+                for (int k : new int[]{1, 10, 57, 5000}) {
+                    for (boolean ties : new boolean[]{false, true}) {
+                        String what = programme + "/" + level + "/k=" + k + "/ties=" + ties;
+                        List<Student> expected = fullSort(students, programme, level, k, ties);
+                        Assertions.assertEquals(expected, snap.topPerformers(programme, level, k, ties), what);
+                        Assertions.assertEquals(expected, repo.topByGpa(programme, level, k, ties), what);
+                    }
+                }
+            }
+        }
+
+        Map<String, List<Student>> perProgramme = snap.topPerProgramme(10, true);
+        Assertions.assertEquals(List.of(PROGRAMMES), List.copyOf(perProgramme.keySet()));
+        for (String p : PROGRAMMES) {
+            Assertions.assertEquals(fullSort(students, p, null, 10, true), perProgramme.get(p), p);
+        }
+        Map<Integer, List<Student>> perLevel = snap.topPerLevel(3, false);
+        for (int lv = 100; lv <= 400; lv += 100) {
+            Assertions.assertEquals(fullSort(students, null, lv, 3, false), perLevel.get(lv), "level " + lv);
+        }
+    }
+
+    /** The old way: sort everything, take k (and whatever ties the k-th). */
+    private static List<Student> fullSort(List<Student> all, String programme, Integer level, int k, boolean ties) {
+        List<Student> sorted = all.stream()
+                .filter(s -> programme == null || programme.equals(s.programme()))
+                .filter(s -> level == null || level == s.level())
+                .sorted(Comparator.comparingDouble(Student::gpa).reversed().thenComparing(Student::studentId))
+                .toList();
+        int end = Math.min(k, sorted.size());
+        while (ties && end > 0 && end < sorted.size() && sorted.get(end).gpa() == sorted.get(end - 1).gpa()) end++;
+        return sorted.subList(0, end);
+    }
+}